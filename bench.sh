@@ -0,0 +1,14 @@
+#!/bin/bash
+
+# Script de benchmarks JMH du projet Quiz Distribué
+# Usage: ./bench.sh [filtre] [options JMH...]
+#   ./bench.sh                   → toutes les suites
+#   ./bench.sh Question -prof gc → une suite, avec profil d'allocation
+
+cd "$(dirname "$0")/bench" || exit 1
+
+echo "→ Construction du module de benchmarks..."
+mvn -B -q package || { echo "✗ Erreur de construction des benchmarks"; exit 1; }
+
+echo "→ Exécution JMH..."
+java -jar target/benchmarks.jar "$@"
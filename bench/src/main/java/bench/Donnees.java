@@ -0,0 +1,91 @@
+package bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Jeux de données synthétiques reproduisant la forme de {@code data/storage.json}.
+ */
+final class Donnees {
+
+    private static final String[] THEMES = { "Maths", "Histoire", "Geographie", "Sciences", "Sport" };
+
+    private Donnees() {}
+
+    static String theme(int i) {
+        return THEMES[i % THEMES.length];
+    }
+
+    static String joueur(int i) {
+        return "joueur" + i;
+    }
+
+    /** Document de stockage complet : n utilisateurs, n scores, 10 lignes d'historique par joueur. */
+    static Map<String, Object> document(int nbJoueurs) {
+        Random r = new Random(42);
+        Map<String, Object> doc = new LinkedHashMap<>();
+
+        List<Object> users = new ArrayList<>(nbJoueurs);
+        Map<String, Object> scores = new LinkedHashMap<>();
+        for (int i = 0; i < nbJoueurs; i++) {
+            Map<String, Object> u = new LinkedHashMap<>();
+            u.put("username", joueur(i));
+            u.put("salt", hex(r, 16));
+            u.put("hash", hex(r, 32));
+            users.add(u);
+            scores.put(joueur(i), r.nextInt(5000));
+        }
+        doc.put("users", users);
+
+        List<Object> questions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Map<String, Object> q = new LinkedHashMap<>();
+            q.put("theme", theme(i));
+            q.put("question", "Question numéro " + i + " : quelle est la réponse attendue ?");
+            q.put("answer", "Réponse " + i);
+            q.put("difficulty", 1 + i % 3);
+            q.put("points", 10);
+            questions.add(q);
+        }
+        doc.put("themes_json", questions);
+        doc.put("scores_global", scores);
+
+        List<Object> matches = new ArrayList<>(nbJoueurs * 10);
+        for (int i = 0; i < nbJoueurs * 10; i++) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("matchId", "M" + (i / 4));
+            m.put("timestampMs", 1_700_000_000_000L + i * 1000L);
+            m.put("theme", theme(i));
+            m.put("username", joueur(r.nextInt(nbJoueurs)));
+            m.put("score", r.nextInt(200));
+            m.put("rank", 1 + i % 4);
+            m.put("total", 4);
+            matches.add(m);
+        }
+        doc.put("matches", matches);
+        return doc;
+    }
+
+    static Path fichierTemporaire() {
+        try {
+            Path dir = Files.createTempDirectory("quiz-bench");
+            dir.toFile().deleteOnExit();
+            return dir.resolve("storage.json");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String hex(Random r, int octets) {
+        StringBuilder sb = new StringBuilder(octets * 2);
+        for (int i = 0; i < octets; i++) sb.append(String.format("%02x", r.nextInt(256)));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package bench;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import serveur.PlayerSession;
+import serveur.service.MatchmakingService;
+
+/**
+ * Formation d'un groupe alors que d'autres salons attendent encore des joueurs.
+ * Chaque invocation complète l'un des salons en attente puis retire le groupe
+ * formé (il y reste un joueur : l'état est identique d'une invocation à l'autre).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchmakingBenchmark {
+
+    private static final int MIN_JOUEURS = 2;
+    private static final int MAX_JOUEURS = 4;
+
+    /** Salons incomplets (un joueur chacun) présents dans la file. */
+    @Param({ "0", "100", "1000" })
+    public int sallesEnAttente;
+
+    private MatchmakingService matchmaking;
+    private PlayerSession[] groupe;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        matchmaking = new MatchmakingService(MIN_JOUEURS, MAX_JOUEURS, Runnable::run);
+        for (int i = 0; i < sallesEnAttente; i++) {
+            matchmaking.ajouterJoueur(session("attente" + i, "SALLE" + i));
+        }
+        String salle = sallesEnAttente > 0 ? "SALLE" + (sallesEnAttente / 2) : "";
+        groupe = new PlayerSession[MAX_JOUEURS];
+        for (int i = 0; i < MAX_JOUEURS; i++) {
+            groupe[i] = session(Donnees.joueur(i), salle);
+        }
+    }
+
+    @Benchmark
+    public List<List<PlayerSession>> prendreGroupe() throws InterruptedException {
+        for (PlayerSession s : groupe) {
+            matchmaking.ajouterJoueur(s);
+        }
+        return matchmaking.prendreGroupesPourMatch(0);
+    }
+
+    private static PlayerSession session(String nom, String salle) {
+        return new PlayerSession(nom, salle, new Socket(),
+            new BufferedReader(new StringReader("")), new PrintWriter(new StringWriter()));
+    }
+}
@@ -0,0 +1,37 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import serveur.service.ProtocolParser;
+
+/**
+ * Extraction des champs des messages client et serveur-serveur.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtocolParserBenchmark {
+
+    private String play = "PLAY:Histoire;TOKEN:6f1c2e9a0b7d4c3e8f5a1b2c3d4e5f60";
+    private String history = "HISTORY:joueur42;TOKEN:6f1c2e9a0b7d4c3e8f5a1b2c3d4e5f60";
+    private String getHistory = "GET_HISTORY;USER=joueur42;LIMIT=50;token=secret-partage";
+    private String mode = "MODE:solo";
+
+    @Benchmark
+    public void extraireClient(Blackhole bh) {
+        bh.consume(ProtocolParser.extraireTheme(play));
+        bh.consume(ProtocolParser.extraireTokenClient(play));
+        bh.consume(ProtocolParser.extraireUsernameHistory(history));
+        bh.consume(ProtocolParser.extraireMode(mode));
+    }
+
+    @Benchmark
+    public void extraireServeur(Blackhole bh) {
+        bh.consume(ProtocolParser.extraireUserHistory(getHistory));
+        bh.consume(ProtocolParser.verifierTokenServeur(getHistory, "secret-partage"));
+    }
+}
@@ -0,0 +1,58 @@
+package bench;
+
+import data.Question;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Vérification d'une réponse : exacte, floue (faute de frappe), fausse,
+ * et le couple estCorrecte + estCorrecteExacte tel qu'appelé avant verifier().
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QuestionBenchmark {
+
+    private Question question;
+
+    @Param({ "Révolution française", "Théorème de Pythagore d'Alexandrie" })
+    public String reponse;
+
+    private String exacte;
+    private String floue;
+    private String fausse;
+
+    @Setup
+    public void preparer() {
+        question = new Question("Question ?", reponse, 2, 20);
+        exacte = "  " + reponse.toUpperCase() + " ";
+        floue = reponse.substring(0, reponse.length() - 2) + "xe";
+        fausse = "Une tout autre réponse sans rapport";
+    }
+
+    @Benchmark
+    public Question.Correspondance exacte() {
+        return question.verifier(exacte);
+    }
+
+    @Benchmark
+    public Question.Correspondance floue() {
+        return question.verifier(floue);
+    }
+
+    @Benchmark
+    public Question.Correspondance fausse() {
+        return question.verifier(fausse);
+    }
+
+    @Benchmark
+    public void doubleAppel(Blackhole bh) {
+        boolean ok = question.estCorrecte(floue);
+        bh.consume(ok);
+        bh.consume(ok && question.estCorrecteExacte(floue));
+    }
+}
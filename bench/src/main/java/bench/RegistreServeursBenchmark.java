@@ -0,0 +1,52 @@
+package bench;
+
+import data.StorageManager;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import serveur.RegistreServeurs;
+
+/**
+ * Sélection du serveur esclave le moins chargé pour un thème.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistreServeursBenchmark {
+
+    @Param({ "5", "50" })
+    public int esclaves;
+
+    private RegistreServeurs registre;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        StorageManager storage = new StorageManager(Donnees.fichierTemporaire().toString());
+        registre = new RegistreServeurs(storage);
+        int largeur = Math.max(1, 100 / esclaves);
+        for (int i = 0; i < esclaves; i++) {
+            registre.enregistrer(new RegistreServeurs.InfoServeur(
+                "S" + i, "localhost", 5000 + i, Donnees.theme(i),
+                i * largeur, (i + 1) * largeur - 1));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public RegistreServeurs.InfoServeur selectionner() {
+        return registre.selectionnerServeur("Histoire");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public RegistreServeurs.InfoServeur selectionnerConcurrent() {
+        return registre.selectionnerServeur("Histoire");
+    }
+
+    @Benchmark
+    public RegistreServeurs.InfoServeur selectionnerScore() {
+        return registre.selectionnerServeurScore("joueur42");
+    }
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import data.StorageManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import serveur.service.ScoreService;
+
+/**
+ * Classement global : top-K et rang d'un joueur.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoreServiceBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int joueurs;
+
+    private ScoreService scores;
+    private String cible;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        StorageManager storage = new StorageManager(Donnees.fichierTemporaire().toString());
+        scores = new ScoreService(storage);
+        Random r = new Random(7);
+        Map<String, Integer> initiaux = new HashMap<>();
+        for (int i = 0; i < joueurs; i++) {
+            initiaux.put(Donnees.joueur(i), r.nextInt(100_000));
+        }
+        scores.fusionnerMax(initiaux);
+        cible = Donnees.joueur(joueurs / 2);
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, Integer>> top10() {
+        return scores.getClassement(10);
+    }
+
+    @Benchmark
+    public List<Map.Entry<String, Integer>> top100() {
+        return scores.getClassement(100);
+    }
+
+    @Benchmark
+    public int rang() {
+        return scores.getRang(cible);
+    }
+}
@@ -0,0 +1,56 @@
+package bench;
+
+import data.SimpleJson;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Lecture / écriture d'un document de stockage complet, en chaîne et en flux.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SimpleJsonBenchmark {
+
+    /** Nombre de joueurs (≈ 10 lignes d'historique chacun). */
+    @Param({ "100", "1000", "10000" })
+    public int joueurs;
+
+    private Map<String, Object> document;
+    private String texte;
+
+    @Setup
+    public void preparer() {
+        document = Donnees.document(joueurs);
+        texte = SimpleJson.stringify(document);
+    }
+
+    @Benchmark
+    public Object parse() {
+        return SimpleJson.parse(texte);
+    }
+
+    @Benchmark
+    public Object parseFlux() throws IOException {
+        return SimpleJson.parse(new StringReader(texte));
+    }
+
+    @Benchmark
+    public String stringify() {
+        return SimpleJson.stringify(document);
+    }
+
+    @Benchmark
+    public int stringifyFlux() throws IOException {
+        StringWriter w = new StringWriter(texte.length());
+        SimpleJson.stringify(document, w);
+        return w.getBuffer().length();
+    }
+}
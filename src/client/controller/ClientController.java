@@ -13,8 +13,13 @@ import java.net.SocketTimeoutException;
 import java.util.List;
 
 public class ClientController {
+    /** Nombre de joueurs demandés au classement (première page). */
+    private static final int TAILLE_CLASSEMENT = 50;
+
     private final ClientConfig config;
     private final ConsoleView view;
+    /** Jeton de session délivré par un esclave, présenté aux connexions suivantes. */
+    private String jetonSession;
 
     public ClientController(ClientConfig config, ConsoleView view) {
         this.config = config;
@@ -54,7 +59,7 @@ public class ClientController {
                     String user = view.askUsername();
                     outMaitre.println(avecToken("HISTORY:" + user));
                 } else if (choice == 3) {
-                    outMaitre.println(avecToken("LEADERBOARD"));
+                    outMaitre.println(avecToken("LEADERBOARD:0," + TAILLE_CLASSEMENT));
                 } else if (choice == 4) {
                     outMaitre.println(avecToken("THEMES"));
                 } else if (choice == 5) {
@@ -79,7 +84,14 @@ public class ClientController {
 
             if ("HISTORY_BEGIN".equals(redirection)) {
                 List<String> lignes = view.readBlock(inMaitre, "HISTORY_END");
+                String partiel = null;
+                if (!lignes.isEmpty() && lignes.get(lignes.size() - 1).startsWith("HISTORY_PARTIAL:")) {
+                    partiel = lignes.remove(lignes.size() - 1).substring(16);
+                }
                 view.showHistory(lignes, "Historique personnel");
+                if (partiel != null) {
+                    view.showError("Historique incomplet (serveurs sans réponse: " + partiel + ")");
+                }
                 return view.askPlayAfterInfo();
             }
 
@@ -120,6 +132,7 @@ public class ClientController {
 
             int questionNum = 1;
             boolean termine = false;
+            boolean jetonPresente = false;
 
             while (!termine) {
                 String msg = inEsclave.readLine();
@@ -128,6 +141,12 @@ public class ClientController {
                 }
 
                 if ("AUTH?".equals(msg)) {
+                    if (jetonSession != null && !jetonPresente) {
+                        outEsclave.println("SESSION:" + jetonSession);
+                        jetonPresente = true;
+                        continue;
+                    }
+                    jetonSession = null; // refusé (expiré) : retour au mot de passe
                     AuthRequest auth = view.askAuth();
                     if (auth.isRegister()) {
                         outEsclave.println("REGISTER:" + auth.getUsername() + ";PASS:" + auth.getPassword());
@@ -138,7 +157,8 @@ public class ClientController {
                     view.showError(msg);
                     break;
                 } else if (msg.startsWith("OK:AUTH")) {
-                    // no-op
+                    int i = msg.indexOf(";SESSION=");
+                    if (i >= 0) jetonSession = msg.substring(i + 9).trim();
                 } else if (msg.startsWith("MENU:")) {
                     view.showInfo(msg);
                     outEsclave.println("1");
@@ -166,6 +186,8 @@ public class ClientController {
                     termine = true;
                 } else if ("EN_ATTENTE".equals(msg)) {
                     view.showInfo("→ En attente d'autres joueurs...");
+                } else if (msg.startsWith("EN_ATTENTE:ETA=")) {
+                    view.showInfo("→ Serveur occupé, attente estimée : ~" + msg.substring(15) + " s");
                 } else if (msg.startsWith("MATCH_START:")) {
                     view.showMatchStart(msg);
                 } else if (msg.startsWith("QUESTION:")) {
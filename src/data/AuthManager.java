@@ -1,10 +1,32 @@
 package data;
 
-import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Authentification des joueurs (LOGIN / REGISTER).
+ *
+ * <p>Les utilisateurs sont indexés une fois en mémoire au démarrage puis mis à
+ * jour incrémentalement : une connexion est une simple lecture de l'index,
+ * sans verrou global ni relecture du stockage. Un utilisateur inconnu
+ * déclenche au plus une relecture périodique du stockage, pour voir les
+ * comptes créés par les autres serveurs partageant le même fichier.</p>
+ *
+ * <p>Le hachage des mots de passe ({@link SchemaHachage}, PBKDF2 par défaut)
+ * s'exécute sur un pool borné de threads dédiés, avec une file d'attente
+ * limitée : au-delà, la demande est refusée (« serveur surchargé ») plutôt
+ * que de saturer tous les cœurs. Les comptes hachés avec un schéma plus
+ * faible sont re-hachés à leur prochaine connexion réussie.</p>
+ */
 public class AuthManager {
     private static final String LOGIN_PREFIX = "LOGIN:";
     private static final String REGISTER_PREFIX = "REGISTER:";
@@ -12,12 +34,40 @@ public class AuthManager {
     private static final int MIN_PASSWORD_LENGTH = 4;
     private static final int SALT_LENGTH_BYTES = 16;
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    /** Intervalle minimal entre deux relectures du stockage sur utilisateur inconnu. */
+    private static final long INTERVALLE_RELECTURE_MS = 1000;
+    private static final int FILE_HACHAGE_DEFAUT = 64;
 
     private final StorageManager storage;
-    private final Object verrou = new Object();
+    private final SchemaHachage schema;
+    private final int iterations;
+    private final ThreadPoolExecutor hachage;
+    private final Map<String, UserRecord> index = new ConcurrentHashMap<>();
+    /** Nombre d'éléments de la liste "users" (ajout seul) déjà indexés. */
+    private int nbIndexes;
+    private long derniereRelecture;
 
     public AuthManager(StorageManager storage) {
+        this(storage, SchemaHachage.PBKDF2, SchemaHachage.ITERATIONS_DEFAUT, 0, FILE_HACHAGE_DEFAUT);
+    }
+
+    /**
+     * @param threads nombre de threads de hachage (&lt;= 0 : la moitié des cœurs)
+     * @param file    demandes de hachage en attente au-delà desquelles on refuse
+     */
+    public AuthManager(StorageManager storage, SchemaHachage schema, int iterations, int threads, int file) {
         this.storage = storage;
+        this.schema = schema;
+        this.iterations = schema == SchemaHachage.SHA256 ? 1 : Math.max(1, iterations);
+        int n = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger compteur = new AtomicInteger();
+        this.hachage = new ThreadPoolExecutor(n, n, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, file)), r -> {
+                Thread t = new Thread(r, "Auth-" + compteur.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        indexerNouveaux();
     }
 
     public static class Result {
@@ -45,13 +95,22 @@ public class AuthManager {
     private static class UserRecord {
         private final String saltHex;
         private final String hashHex;
+        private final SchemaHachage schema;
+        private final int iterations;
 
-        private UserRecord(String saltHex, String hashHex) {
+        private UserRecord(String saltHex, String hashHex, SchemaHachage schema, int iterations) {
             this.saltHex = saltHex;
             this.hashHex = hashHex;
+            this.schema = schema;
+            this.iterations = iterations;
         }
     }
 
+    /** Refus d'une demande de hachage : pool et file d'attente pleins. */
+    private static class Surcharge extends Exception {
+        private static final long serialVersionUID = 1L;
+    }
+
     public Result authentifier(String message) {
         if (message == null || message.isBlank()) {
             return new Result(false, null, "Message vide");
@@ -93,62 +152,131 @@ public class AuthManager {
     }
 
     private Result verifierLogin(String username, String password) {
-        synchronized (verrou) {
-            Map<String, UserRecord> users = chargerUsers();
-            UserRecord userRecord = users.get(username);
-            if (userRecord == null) {
-                return new Result(false, null, "Utilisateur inconnu");
-            }
+        UserRecord userRecord = index.get(username);
+        if (userRecord == null && relireStockage(false)) {
+            userRecord = index.get(username);
+        }
+        if (userRecord == null) {
+            return new Result(false, null, "Utilisateur inconnu");
+        }
 
-            String calc = sha256Hex(hexToBytes(userRecord.saltHex), password);
-            if (!calc.equals(userRecord.hashHex)) {
-                return new Result(false, null, "Mot de passe incorrect");
-            }
-            return new Result(true, username, "OK");
+        final UserRecord actuel = userRecord;
+        UserRecord miseANiveau;
+        try {
+            // Vérification et, si besoin, re-hachage dans la même tâche du pool
+            miseANiveau = surPool(() -> {
+                byte[] calc = actuel.schema.hacher(hexToBytes(actuel.saltHex), password, actuel.iterations);
+                if (!MessageDigest.isEqual(calc, hexToBytes(actuel.hashHex))) return null;
+                return aMettreANiveau(actuel) ? nouveauRecord(password) : actuel;
+            });
+        } catch (Surcharge e) {
+            return new Result(false, null, "Serveur surcharge, reessayez");
         }
+        if (miseANiveau == null) {
+            return new Result(false, null, "Mot de passe incorrect");
+        }
+        if (miseANiveau != actuel && index.replace(username, actuel, miseANiveau)) {
+            sauvegarderUser(username, miseANiveau);
+        }
+        return new Result(true, username, "OK");
     }
 
     private Result enregistrer(String username, String password) {
-        synchronized (verrou) {
-            Map<String, UserRecord> users = chargerUsers();
-            if (users.containsKey(username)) {
-                return new Result(false, null, "Utilisateur deja existant");
-            }
+        if (!index.containsKey(username)) {
+            relireStockage(true);
+        }
+        if (index.containsKey(username)) {
+            return new Result(false, null, "Utilisateur deja existant");
+        }
+
+        UserRecord record;
+        try {
+            record = surPool(() -> nouveauRecord(password));
+        } catch (Surcharge e) {
+            return new Result(false, null, "Serveur surcharge, reessayez");
+        }
+        if (index.putIfAbsent(username, record) != null) {
+            return new Result(false, null, "Utilisateur deja existant");
+        }
+        sauvegarderUser(username, record);
+        return new Result(true, username, "OK");
+    }
+
+    // --- Hachage ---
+
+    private UserRecord nouveauRecord(String password) {
+        byte[] salt = new byte[SALT_LENGTH_BYTES];
+        SECURE_RANDOM.nextBytes(salt);
+        return new UserRecord(bytesToHex(salt), bytesToHex(schema.hacher(salt, password, iterations)),
+            schema, iterations);
+    }
 
-            byte[] salt = new byte[SALT_LENGTH_BYTES];
-            SECURE_RANDOM.nextBytes(salt);
-            String saltHex = bytesToHex(salt);
-            String hashHex = sha256Hex(salt, password);
-            users.put(username, new UserRecord(saltHex, hashHex));
-            sauvegarderUsers(users);
-            return new Result(true, username, "OK");
+    private boolean aMettreANiveau(UserRecord r) {
+        return r.schema != schema || r.iterations < iterations;
+    }
+
+    /** Exécute un calcul de hachage sur le pool dédié et attend son résultat. */
+    private <T> T surPool(Callable<T> calcul) throws Surcharge {
+        try {
+            return hachage.submit(calcul).get();
+        } catch (RejectedExecutionException e) {
+            throw new Surcharge();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Surcharge();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
         }
     }
 
-    private Map<String, UserRecord> chargerUsers() {
-        Map<String, UserRecord> users = new HashMap<>();
+    // --- Index ---
+
+    /**
+     * Relit le stockage (comptes créés ailleurs) et indexe les nouveaux
+     * utilisateurs ; hors {@code force}, au plus une fois par intervalle.
+     * @return vrai si une relecture a eu lieu
+     */
+    private boolean relireStockage(boolean force) {
+        synchronized (index) {
+            long maintenant = System.currentTimeMillis();
+            if (!force && maintenant - derniereRelecture < INTERVALLE_RELECTURE_MS) return false;
+            derniereRelecture = maintenant;
+        }
+        storage.recharger();
+        indexerNouveaux();
+        return true;
+    }
+
+    /** Indexe les éléments de la liste "users" ajoutés depuis le dernier passage. */
+    private void indexerNouveaux() {
         List<Map<String, Object>> userList = storage.getList("users");
-        for (Map<String, Object> u : userList) {
-            String username = SimpleJson.toStr(u.get("username"), null);
-            String salt = SimpleJson.toStr(u.get("salt"), null);
-            String hash = SimpleJson.toStr(u.get("hash"), null);
-            if (username != null && salt != null && hash != null) {
-                users.put(username, new UserRecord(salt, hash));
+        synchronized (index) {
+            if (userList.size() < nbIndexes) nbIndexes = 0; // liste réécrite
+            for (int i = nbIndexes; i < userList.size(); i++) {
+                Map<String, Object> u = userList.get(i);
+                String username = SimpleJson.toStr(u.get("username"), null);
+                String salt = SimpleJson.toStr(u.get("salt"), null);
+                String hash = SimpleJson.toStr(u.get("hash"), null);
+                if (username != null && salt != null && hash != null) {
+                    // Le dernier enregistrement gagne : il peut s'agir d'une mise à niveau
+                    SchemaHachage algo = u.containsKey("algo")
+                        ? SchemaHachage.depuisNom(SimpleJson.toStr(u.get("algo"), null)) : SchemaHachage.SHA256;
+                    index.put(username, new UserRecord(salt, hash, algo,
+                        SimpleJson.toInt(u.get("iterations"), 1)));
+                }
             }
+            nbIndexes = userList.size();
         }
-        return users;
     }
 
-    private void sauvegarderUsers(Map<String, UserRecord> users) {
-        List<Map<String, Object>> userList = new ArrayList<>();
-        for (Map.Entry<String, UserRecord> entry : users.entrySet()) {
-            Map<String, Object> u = new LinkedHashMap<>();
-            u.put("username", entry.getKey());
-            u.put("salt", entry.getValue().saltHex);
-            u.put("hash", entry.getValue().hashHex);
-            userList.add(u);
-        }
-        storage.sauvegarder("users", userList);
+    private void sauvegarderUser(String username, UserRecord record) {
+        Map<String, Object> u = new LinkedHashMap<>();
+        u.put("username", username);
+        u.put("salt", record.saltHex);
+        u.put("hash", record.hashHex);
+        u.put("algo", record.schema.name());
+        u.put("iterations", record.iterations);
+        storage.ajouterElements("users", Collections.singletonList(u));
     }
 
     private Credentials parseCredentials(String payload) {
@@ -177,17 +305,6 @@ public class AuthManager {
         return u.length() >= 3 && u.length() <= 20 && u.matches("[A-Za-z0-9_\\-]+");
     }
 
-    private String sha256Hex(byte[] salt, String password) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            md.update(salt);
-            md.update(password.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(md.digest());
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
     private String bytesToHex(byte[] bytes) {
         StringBuilder sb = new StringBuilder();
         for (byte b : bytes) {
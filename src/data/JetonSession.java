@@ -0,0 +1,89 @@
+package data;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Jetons de session signés (HMAC-SHA256) et à durée limitée.
+ *
+ * <p>Émis après une authentification par mot de passe, un jeton
+ * {@code user.expirationMs.signature} permet au client de se reconnecter à
+ * n'importe quel esclave partageant le même secret : la vérification se
+ * limite à un calcul de HMAC, sans accès au stockage des utilisateurs.</p>
+ */
+public class JetonSession {
+    public static final String PREFIXE = "SESSION:";
+
+    private static final String ALGORITHME = "HmacSHA256";
+    /** Séparation de domaine : le secret partagé sert aussi de token inter-serveurs. */
+    private static final String DOMAINE = "quiz-session:";
+
+    private final SecretKeySpec cle;
+    private final long dureeMs;
+    private final ThreadLocal<Mac> macs;
+
+    public JetonSession(String secret, long dureeMs) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("Secret de session requis");
+        }
+        this.cle = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHME);
+        this.dureeMs = dureeMs;
+        this.macs = ThreadLocal.withInitial(this::nouveauMac);
+    }
+
+    /** Jeton pour ce joueur, valable {@code dureeMs} à partir de maintenant. */
+    public String emettre(String username) {
+        String corps = username + "." + (System.currentTimeMillis() + dureeMs);
+        return corps + "." + signer(corps);
+    }
+
+    /**
+     * Vérifie un jeton (avec ou sans le préfixe {@link #PREFIXE}).
+     * @return le nom du joueur, ou null si le jeton est invalide ou expiré
+     */
+    public String verifier(String jeton) {
+        if (jeton == null) return null;
+        if (jeton.startsWith(PREFIXE)) jeton = jeton.substring(PREFIXE.length());
+        jeton = jeton.trim();
+
+        int sig = jeton.lastIndexOf('.');
+        int exp = sig > 0 ? jeton.lastIndexOf('.', sig - 1) : -1;
+        if (exp <= 0) return null;
+
+        String corps = jeton.substring(0, sig);
+        byte[] attendue = signer(corps).getBytes(StandardCharsets.US_ASCII);
+        byte[] recue = jeton.substring(sig + 1).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(attendue, recue)) return null;
+
+        long expiration;
+        try {
+            expiration = Long.parseLong(jeton.substring(exp + 1, sig));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (System.currentTimeMillis() > expiration) return null;
+        return jeton.substring(0, exp);
+    }
+
+    // --- HMAC ---
+
+    private String signer(String corps) {
+        Mac mac = macs.get();
+        byte[] h = mac.doFinal((DOMAINE + corps).getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(h);
+    }
+
+    private Mac nouveauMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHME);
+            mac.init(cle);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHME + " indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Journal d'écriture (write-ahead log) associé à un snapshot storage.json.
+ *
+ * <p>Format : une première ligne d'en-tête {@code {"gen":<n>}} identifiant la
+ * génération du journal, puis un enregistrement JSON compact par ligne.
+ * La génération change à chaque compaction, ce qui permet aux autres processus
+ * partageant le fichier de détecter qu'ils doivent recharger le snapshot.</p>
+ *
+ * <p>Toutes les opérations, sauf {@link #verrouiller()}, supposent que
+ * l'appelant détient le verrou fichier.</p>
+ */
+class JournalStockage implements Closeable {
+
+    private final RandomAccessFile fichier;
+    private final FileChannel canal;
+    private long generation = -1;
+    private long offset;
+    private int nbEnregistrements;
+
+    JournalStockage(Path chemin) throws IOException {
+        this.fichier = new RandomAccessFile(chemin.toFile(), "rw");
+        this.canal = fichier.getChannel();
+    }
+
+    /** Verrou exclusif inter-processus sur le journal. */
+    FileLock verrouiller() throws IOException {
+        return canal.lock();
+    }
+
+    long getGeneration()       { return generation; }
+    int getNbEnregistrements() { return nbEnregistrements; }
+
+    /**
+     * Génération inscrite sur disque ; crée l'en-tête si le journal est vide.
+     */
+    long lireGenerationDisque() throws IOException {
+        if (canal.size() == 0) {
+            reinitialiser();
+            return generation;
+        }
+        String entete = lireLigne(0);
+        Object parsed = entete == null ? null : SimpleJson.parse(entete);
+        if (parsed instanceof java.util.Map) {
+            return SimpleJson.toLong(((java.util.Map<?, ?>) parsed).get("gen"), -1);
+        }
+        return -1;
+    }
+
+    /**
+     * Relit le journal depuis le début (après l'en-tête) et adopte sa génération.
+     * Une dernière ligne incomplète (arrêt brutal pendant une écriture) est tronquée.
+     */
+    List<String> lireTout() throws IOException {
+        generation = lireGenerationDisque();
+        String entete = lireLigne(0);
+        offset = entete == null ? 0 : entete.getBytes(StandardCharsets.UTF_8).length + 1;
+        nbEnregistrements = 0;
+        return lireNouveaux();
+    }
+
+    /**
+     * Enregistrements ajoutés (par n'importe quel processus) depuis la dernière lecture.
+     */
+    List<String> lireNouveaux() throws IOException {
+        List<String> lignes = new ArrayList<>();
+        long taille = canal.size();
+        if (taille <= offset) return lignes;
+
+        ByteBuffer buf = ByteBuffer.allocate((int) (taille - offset));
+        canal.read(buf, offset);
+        byte[] data = buf.array();
+        int debut = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == '\n') {
+                if (i > debut) {
+                    lignes.add(new String(data, debut, i - debut, StandardCharsets.UTF_8));
+                }
+                debut = i + 1;
+            }
+        }
+        offset += debut;
+        nbEnregistrements += lignes.size();
+        if (debut < data.length) {
+            canal.truncate(offset);
+        }
+        return lignes;
+    }
+
+    /** Ajoute un enregistrement en fin de journal. */
+    void ajouter(String enregistrement) throws IOException {
+        byte[] data = (enregistrement + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        long pos = canal.size();
+        while (buf.hasRemaining()) {
+            pos += canal.write(buf, pos);
+        }
+        offset = pos;
+        nbEnregistrements++;
+    }
+
+    /** Force l'écriture physique du journal (fsync). */
+    void synchroniser() throws IOException {
+        canal.force(false);
+    }
+
+    /** Vide le journal et démarre une nouvelle génération. */
+    void reinitialiser() throws IOException {
+        generation = System.currentTimeMillis() * 1000 + ThreadLocalRandom.current().nextInt(1000);
+        byte[] entete = ("{\"gen\":" + generation + "}\n").getBytes(StandardCharsets.UTF_8);
+        canal.truncate(0);
+        canal.write(ByteBuffer.wrap(entete), 0);
+        offset = entete.length;
+        nbEnregistrements = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fichier.close();
+    }
+
+    private String lireLigne(long position) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+        ByteBuffer buf = ByteBuffer.allocate(64);
+        long pos = position;
+        while (true) {
+            buf.clear();
+            int n = canal.read(buf, pos);
+            if (n <= 0) return null;
+            for (int i = 0; i < n; i++) {
+                byte b = buf.get(i);
+                if (b == '\n') return out.toString(StandardCharsets.UTF_8);
+                out.write(b);
+            }
+            pos += n;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parseur JSON en flux (pull parser) au-dessus d'un {@link Reader}.
+ *
+ * <p>Lit le document jeton par jeton avec un tampon de taille fixe : le texte
+ * complet n'est jamais chargé en mémoire. Les valeurs peuvent être matérialisées
+ * ({@link #lireValeur()}) ou sautées ({@link #ignorerValeur()}) une à une.</p>
+ */
+public class JsonReader implements Closeable {
+
+    public enum Jeton { DEBUT_OBJET, FIN_OBJET, DEBUT_TABLEAU, FIN_TABLEAU, CHAINE, NOMBRE, BOOLEEN, NUL, FIN }
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int lim;
+    private long consommes;
+
+    public JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    /** Type du prochain jeton, sans le consommer (les séparateurs ',' et ':' sont sautés). */
+    public Jeton peek() throws IOException {
+        int c = prochainSignificatif();
+        switch (c) {
+            case -1:  return Jeton.FIN;
+            case '{': return Jeton.DEBUT_OBJET;
+            case '}': return Jeton.FIN_OBJET;
+            case '[': return Jeton.DEBUT_TABLEAU;
+            case ']': return Jeton.FIN_TABLEAU;
+            case '"': return Jeton.CHAINE;
+            case 't': case 'f': return Jeton.BOOLEEN;
+            case 'n': return Jeton.NUL;
+            default:  return Jeton.NOMBRE;
+        }
+    }
+
+    public void debutObjet() throws IOException   { attendre('{'); }
+    public void finObjet() throws IOException     { attendre('}'); }
+    public void debutTableau() throws IOException { attendre('['); }
+    public void finTableau() throws IOException   { attendre(']'); }
+
+    /** Vrai s'il reste un élément dans l'objet ou le tableau courant. */
+    public boolean aSuivant() throws IOException {
+        Jeton j = peek();
+        return j != Jeton.FIN_OBJET && j != Jeton.FIN_TABLEAU && j != Jeton.FIN;
+    }
+
+    /** Lit un nom de propriété (et le ':' qui suit). */
+    public String lireNom() throws IOException {
+        String nom = lireChaine();
+        attendre(':');
+        return nom;
+    }
+
+    public String lireChaine() throws IOException {
+        attendre('"');
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            int c = lire();
+            if (c == -1 || c == '"') return sb.toString();
+            if (c == '\\') {
+                int e = lire();
+                switch (e) {
+                    case '"':  sb.append('"');  break;
+                    case '\\': sb.append('\\'); break;
+                    case '/':  sb.append('/');  break;
+                    case 'n':  sb.append('\n'); break;
+                    case 'r':  sb.append('\r'); break;
+                    case 't':  sb.append('\t'); break;
+                    case 'b':  sb.append('\b'); break;
+                    case 'f':  sb.append('\f'); break;
+                    case 'u': {
+                        char[] hex = { (char) lire(), (char) lire(), (char) lire(), (char) lire() };
+                        sb.append((char) Integer.parseInt(new String(hex), 16));
+                        break;
+                    }
+                    default: sb.append((char) e);
+                }
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    public Number lireNombre() throws IOException {
+        prochainSignificatif();
+        StringBuilder sb = new StringBuilder();
+        boolean fp = false;
+        while (true) {
+            int c = regarder();
+            if (c >= '0' && c <= '9' || c == '-' || c == '+') {
+                sb.append((char) lire());
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                fp = true;
+                sb.append((char) lire());
+            } else {
+                break;
+            }
+        }
+        String s = sb.toString();
+        if (s.isEmpty()) throw erreur("nombre");
+        if (fp) return Double.parseDouble(s);
+        long l = Long.parseLong(s);
+        return (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) ? (int) l : l;
+    }
+
+    public boolean lireBooleen() throws IOException {
+        if (prochainSignificatif() == 't') { litteral("true"); return true; }
+        litteral("false");
+        return false;
+    }
+
+    public void lireNul() throws IOException {
+        prochainSignificatif();
+        litteral("null");
+    }
+
+    /** Matérialise la prochaine valeur (Map, List, String, Number, Boolean ou null). */
+    public Object lireValeur() throws IOException {
+        switch (peek()) {
+            case DEBUT_OBJET: {
+                debutObjet();
+                Map<String, Object> map = new LinkedHashMap<>();
+                while (aSuivant()) {
+                    String k = lireNom();
+                    map.put(k, lireValeur());
+                }
+                finObjet();
+                return map;
+            }
+            case DEBUT_TABLEAU: {
+                debutTableau();
+                List<Object> list = new ArrayList<>();
+                while (aSuivant()) list.add(lireValeur());
+                finTableau();
+                return list;
+            }
+            case CHAINE:  return lireChaine();
+            case BOOLEEN: return lireBooleen();
+            case NUL:     lireNul(); return null;
+            case NOMBRE:  return lireNombre();
+            default:      throw erreur("valeur");
+        }
+    }
+
+    /** Saute la prochaine valeur sans la matérialiser. */
+    public void ignorerValeur() throws IOException {
+        switch (peek()) {
+            case DEBUT_OBJET:
+                debutObjet();
+                while (aSuivant()) { lireNom(); ignorerValeur(); }
+                finObjet();
+                break;
+            case DEBUT_TABLEAU:
+                debutTableau();
+                while (aSuivant()) ignorerValeur();
+                finTableau();
+                break;
+            case CHAINE:  lireChaine(); break;
+            case BOOLEEN: lireBooleen(); break;
+            case NUL:     lireNul(); break;
+            case NOMBRE:  lireNombre(); break;
+            default:      throw erreur("valeur");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // --- Lecture bas niveau ---
+
+    private boolean remplir() throws IOException {
+        if (pos < lim) return true;
+        consommes += lim;
+        lim = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (lim <= 0) { lim = 0; return false; }
+        return true;
+    }
+
+    private int regarder() throws IOException {
+        return remplir() ? buf[pos] : -1;
+    }
+
+    private int lire() throws IOException {
+        return remplir() ? buf[pos++] : -1;
+    }
+
+    /** Saute blancs et séparateurs, retourne le prochain caractère sans le consommer. */
+    private int prochainSignificatif() throws IOException {
+        while (true) {
+            int c = regarder();
+            if (c == -1) return -1;
+            if (c <= ' ' || c == ',') { pos++; continue; }
+            return c;
+        }
+    }
+
+    private void attendre(char attendu) throws IOException {
+        int c = attendu == ':' ? sauterBlancs() : prochainSignificatif();
+        if (c != attendu) throw erreur("'" + attendu + "'");
+        pos++;
+    }
+
+    private int sauterBlancs() throws IOException {
+        while (true) {
+            int c = regarder();
+            if (c == -1 || c > ' ') return c;
+            pos++;
+        }
+    }
+
+    private void litteral(String mot) throws IOException {
+        for (int i = 0; i < mot.length(); i++) {
+            if (lire() != mot.charAt(i)) throw erreur(mot);
+        }
+    }
+
+    private RuntimeException erreur(String attendu) {
+        return new RuntimeException("JSON: attendu " + attendu + " à pos " + (consommes + pos));
+    }
+}
@@ -0,0 +1,164 @@
+package data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Écrivain JSON en flux au-dessus d'un {@link Writer}.
+ *
+ * <p>Produit exactement la même mise en forme que {@link SimpleJson#stringify}
+ * (indentation de deux espaces), mais écrit au fil de l'eau au lieu de
+ * construire la chaîne complète en mémoire. S'utilise soit jeton par jeton
+ * ({@link #debutObjet()}, {@link #nom(String)}, ...), soit pour une valeur
+ * complète ({@link #valeur(Object)}).</p>
+ */
+public class JsonWriter implements Closeable {
+
+    private final Writer out;
+    /** Par niveau ouvert : nombre d'éléments déjà écrits. */
+    private final Deque<int[]> niveaux = new ArrayDeque<>();
+    private boolean apresNom;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter debutObjet() throws IOException {
+        avantValeur();
+        out.write('{');
+        niveaux.push(new int[1]);
+        return this;
+    }
+
+    public JsonWriter finObjet() throws IOException {
+        fermer('}');
+        return this;
+    }
+
+    public JsonWriter debutTableau() throws IOException {
+        avantValeur();
+        out.write('[');
+        niveaux.push(new int[1]);
+        return this;
+    }
+
+    public JsonWriter finTableau() throws IOException {
+        fermer(']');
+        return this;
+    }
+
+    public JsonWriter nom(String nom) throws IOException {
+        avantElement();
+        echapper(nom);
+        out.write(": ");
+        apresNom = true;
+        return this;
+    }
+
+    /** Écrit une valeur complète (Map, List, String, Number, Boolean, null). */
+    @SuppressWarnings("unchecked")
+    public JsonWriter valeur(Object o) throws IOException {
+        if (o instanceof Map) {
+            Map<String, Object> m = (Map<String, Object>) o;
+            if (m.isEmpty()) { avantValeur(); out.write("{}"); return this; }
+            debutObjet();
+            for (Map.Entry<String, Object> e : m.entrySet()) {
+                nom(e.getKey());
+                valeur(e.getValue());
+            }
+            return finObjet();
+        }
+        if (o instanceof List) {
+            List<Object> l = (List<Object>) o;
+            if (l.isEmpty()) { avantValeur(); out.write("[]"); return this; }
+            debutTableau();
+            Iterator<Object> it = l.iterator();
+            while (it.hasNext()) valeur(it.next());
+            return finTableau();
+        }
+        avantValeur();
+        if (o == null) {
+            out.write("null");
+        } else if (o instanceof Boolean) {
+            out.write(o.toString());
+        } else if (o instanceof Number) {
+            out.write(nombre((Number) o));
+        } else {
+            echapper(o.toString());
+        }
+        return this;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    // --- Mise en forme ---
+
+    /** Séparateur et indentation avant une valeur (sauf juste après un nom). */
+    private void avantValeur() throws IOException {
+        if (apresNom) {
+            apresNom = false;
+            return;
+        }
+        if (!niveaux.isEmpty()) avantElement();
+    }
+
+    private void avantElement() throws IOException {
+        int[] n = niveaux.peek();
+        if (n == null) return;
+        out.write(n[0] == 0 ? "\n" : ",\n");
+        n[0]++;
+        indenter(niveaux.size());
+    }
+
+    private void fermer(char c) throws IOException {
+        int[] n = niveaux.pop();
+        if (n[0] > 0) {
+            out.write('\n');
+            indenter(niveaux.size());
+        }
+        out.write(c);
+    }
+
+    private void indenter(int d) throws IOException {
+        for (int i = 0; i < d; i++) out.write("  ");
+    }
+
+    private static String nombre(Number n) {
+        if (n instanceof Double || n instanceof Float) {
+            double v = n.doubleValue();
+            if (v == Math.floor(v) && !Double.isInfinite(v)) return String.valueOf((long) v);
+        }
+        return n.toString();
+    }
+
+    private void echapper(String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':  out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n");  break;
+                case '\r': out.write("\\r");  break;
+                case '\t': out.write("\\t");  break;
+                default:
+                    if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+                    else out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
@@ -1,13 +1,62 @@
 package data;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Historique des matchs, indexé par joueur.
+ *
+ * <p>Chaque joueur dispose d'un anneau borné de ses dernières lignes
+ * d'historique déjà formatées : une consultation coûte O(limit), quel que soit
+ * le nombre total de matchs stockés.</p>
+ *
+ * <p>La même rétention s'applique au stockage : quand la section "matches"
+ * contient plus du double des lignes retenues, elle est réécrite avec les
+ * seules dernières lignes de chaque joueur (coût amorti constant par match).</p>
+ *
+ * <p>Une cote par joueur est tenue à jour à partir des rangs obtenus dans les
+ * matchs multi-joueurs : chaque match la déplace d'au plus ±{@code K_COTE}/2
+ * selon la place (premier : +K/2, dernier : -K/2). Les variations des lignes
+ * élaguées sont cumulées dans la section "cotes_base", relue au démarrage.</p>
+ */
 public class MatchHistory {
+    private static final int RETENTION_DEFAUT = 200;
+    public static final int COTE_INITIALE = 1000;
+    private static final int K_COTE = 32;
+    /** En dessous de ce nombre de lignes stockées, pas d'élagage. */
+    private static final int ELAGAGE_MIN_LIGNES = 1000;
+    private static final DateTimeFormatter FORMAT_DATE =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
     private final StorageManager storage;
     private final Object verrou = new Object();
+    private final int retentionParJoueur;
+    private final Map<String, ArrayDeque<String>> index = new ConcurrentHashMap<>();
+    private final Map<String, Integer> cotes = new ConcurrentHashMap<>();
+    /** Lignes de la section "matches" et lignes retenues dans les anneaux (sous verrou). */
+    private int lignesStockees;
+    private int lignesRetenues;
+    /** Lignes restées après le dernier élagage, y compris celles des autres processus. */
+    private int lignesApresElagage;
 
     public MatchHistory(StorageManager storage) {
+        this(storage, RETENTION_DEFAUT);
+    }
+
+    public MatchHistory(StorageManager storage, int retentionParJoueur) {
         this.storage = storage;
+        this.retentionParJoueur = retentionParJoueur > 0 ? retentionParJoueur : RETENTION_DEFAUT;
+        storage.getMap("cotes_base").forEach((user, base) ->
+            cotes.put(user, COTE_INITIALE + SimpleJson.toInt(base, 0)));
+        synchronized (verrou) {
+            List<Map<String, Object>> matches = storage.getList("matches");
+            lignesStockees = matches.size();
+            indexer(matches);
+            elaguerSiNecessaire();
+        }
     }
 
     public static class PlayerScore {
@@ -26,7 +75,7 @@ public class MatchHistory {
 
     public void enregistrerMatch(String matchId, String theme, long timestampMs, List<PlayerScore> scores) {
         synchronized (verrou) {
-            List<Map<String, Object>> matches = storage.getList("matches");
+            List<Map<String, Object>> matches = new ArrayList<>();
             for (PlayerScore ps : scores) {
                 Map<String, Object> entry = new LinkedHashMap<>();
                 entry.put("matchId", matchId);
@@ -38,32 +87,131 @@ public class MatchHistory {
                 entry.put("total", ps.total);
                 matches.add(entry);
             }
-            storage.sauvegarder("matches", matches);
+            storage.ajouterElements("matches", matches);
+            lignesStockees += matches.size();
+            indexer(matches);
+            elaguerSiNecessaire();
         }
     }
 
+    /**
+     * Dernières lignes d'historique du joueur, de la plus ancienne à la plus récente.
+     */
     public List<String> getHistoriquePourUser(String username, int limit) {
-        List<String> lignes = new ArrayList<>();
-        synchronized (verrou) {
-            List<Map<String, Object>> matches = storage.getList("matches");
-            for (Map<String, Object> m : matches) {
-                String user = SimpleJson.toStr(m.get("username"), "");
-                if (!user.equals(username)) continue;
-                long ts      = SimpleJson.toLong(m.get("timestampMs"), 0);
-                String mid   = SimpleJson.toStr(m.get("matchId"), "");
-                String theme = SimpleJson.toStr(m.get("theme"), "");
-                int score    = SimpleJson.toInt(m.get("score"), 0);
-                int rank     = SimpleJson.toInt(m.get("rank"), 0);
-                int total    = SimpleJson.toInt(m.get("total"), 0);
-                java.time.Instant inst = java.time.Instant.ofEpochMilli(ts);
-                String date = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
-                    .format(inst.atZone(java.time.ZoneId.systemDefault()));
-                lignes.add(date + ";" + mid + ";" + theme + ";" + score + ";" + rank + "/" + total);
+        ArrayDeque<String> anneau = index.get(username);
+        if (anneau == null || limit <= 0) return new ArrayList<>();
+        synchronized (anneau) {
+            int n = Math.min(limit, anneau.size());
+            String[] lignes = new String[n];
+            Iterator<String> it = anneau.descendingIterator();
+            for (int i = n - 1; i >= 0; i--) {
+                lignes[i] = it.next();
             }
+            return new ArrayList<>(Arrays.asList(lignes));
         }
-        if (lignes.size() > limit) {
-            return lignes.subList(lignes.size() - limit, lignes.size());
+    }
+
+    /**
+     * Cote du joueur ({@link #COTE_INITIALE} s'il n'a joué aucun match multi-joueurs).
+     */
+    public int getCote(String username) {
+        return cotes.getOrDefault(username, COTE_INITIALE);
+    }
+
+    // --- Index ---
+
+    private void indexer(List<Map<String, Object>> matches) {
+        for (Map<String, Object> m : matches) {
+            String user = SimpleJson.toStr(m.get("username"), "");
+            if (user.isEmpty()) continue;
+            mettreAJourCote(user, SimpleJson.toInt(m.get("rank"), 0), SimpleJson.toInt(m.get("total"), 0));
+            ArrayDeque<String> anneau = index.computeIfAbsent(user, k -> new ArrayDeque<>());
+            synchronized (anneau) {
+                anneau.addLast(formater(m));
+                if (anneau.size() > retentionParJoueur) {
+                    anneau.removeFirst();
+                } else {
+                    lignesRetenues++;
+                }
+            }
         }
-        return lignes;
+    }
+
+    /**
+     * Réécrit la section "matches" en ne gardant que les {@code retentionParJoueur}
+     * dernières lignes de chaque joueur, si elle contient plus du double des
+     * lignes retenues. Appelé sous verrou.
+     *
+     * <p>Le fichier est partagé entre processus : l'élagage part de l'état
+     * disque relu sous le verrou fichier, et non de ce cache, pour ne perdre ni
+     * les lignes ni les cotes de base écrites par les autres.</p>
+     */
+    private void elaguerSiNecessaire() {
+        if (lignesStockees < ELAGAGE_MIN_LIGNES
+                || lignesStockees <= 2 * Math.max(lignesRetenues, lignesApresElagage)) return;
+
+        int[] restantes = {0};
+        boolean ok = storage.modifierSections(List.of("matches", "cotes_base"), sections -> {
+            List<Map<String, Object>> matches = enListe(sections.get("matches"));
+            Map<String, Object> base = enMap(sections.get("cotes_base"));
+            Map<String, Integer> gardees = new HashMap<>();
+            boolean[] garder = new boolean[matches.size()];
+            for (int i = matches.size() - 1; i >= 0; i--) {
+                Map<String, Object> m = matches.get(i);
+                String user = SimpleJson.toStr(m.get("username"), "");
+                garder[i] = gardees.merge(user, 1, Integer::sum) <= retentionParJoueur;
+                if (!garder[i]) {
+                    int delta = deltaCote(SimpleJson.toInt(m.get("rank"), 0), SimpleJson.toInt(m.get("total"), 0));
+                    if (delta != 0) base.put(user, SimpleJson.toInt(base.get(user), 0) + delta);
+                }
+            }
+            List<Map<String, Object>> gardes = new ArrayList<>(lignesRetenues);
+            for (int i = 0; i < matches.size(); i++) {
+                if (garder[i]) gardes.add(matches.get(i));
+            }
+            restantes[0] = gardes.size();
+            // "matches" d'abord : un échec entre les deux perd des variations au lieu de les compter deux fois
+            Map<String, Object> valeurs = new LinkedHashMap<>();
+            valeurs.put("matches", gardes);
+            valeurs.put("cotes_base", base);
+            return valeurs;
+        });
+        if (ok) {
+            lignesStockees = restantes[0];
+            lignesApresElagage = restantes[0];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> enListe(Object v) {
+        return v instanceof List ? (List<Map<String, Object>>) v : new ArrayList<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> enMap(Object v) {
+        return v instanceof Map ? (Map<String, Object>) v : new LinkedHashMap<>();
+    }
+
+    private void mettreAJourCote(String user, int rank, int total) {
+        int delta = deltaCote(rank, total);
+        if (delta == 0) return;
+        cotes.merge(user, COTE_INITIALE + delta, (ancienne, v) -> ancienne + delta);
+    }
+
+    private static int deltaCote(int rank, int total) {
+        if (total < 2 || rank < 1 || rank > total) return 0; // parties solo
+        double place = (double) (total - rank) / (total - 1); // 1 : premier, 0 : dernier
+        return (int) Math.round(K_COTE * (place - 0.5));
+    }
+
+    private static String formater(Map<String, Object> m) {
+        long ts      = SimpleJson.toLong(m.get("timestampMs"), 0);
+        String mid   = SimpleJson.toStr(m.get("matchId"), "");
+        String theme = SimpleJson.toStr(m.get("theme"), "");
+        int score    = SimpleJson.toInt(m.get("score"), 0);
+        int rank     = SimpleJson.toInt(m.get("rank"), 0);
+        int total    = SimpleJson.toInt(m.get("total"), 0);
+        String date = FORMAT_DATE.format(Instant.ofEpochMilli(ts));
+        return date + ";" + mid + ";" + theme + ";" + score + ";" + rank + "/" + total;
     }
 }
@@ -1,19 +1,47 @@
 package data;
 
-import java.util.Locale;
+import java.util.Arrays;
 
 /**
  * Représente une question de quiz avec difficulté et points.
  * Supporte la correspondance floue (distance de Levenshtein) pour tolérer les fautes.
+ *
+ * <p>La réponse attendue est normalisée une seule fois à la construction ; la
+ * vérification d'une réponse n'alloue rien (tampons réutilisés par thread,
+ * Levenshtein sur deux lignes limité à la bande utile du seuil).</p>
  */
 public class Question {
     private final String texte;
     private final String reponse;
     private final int difficulty;    // 1=facile, 2=moyen, 3=difficile
     private final int points;        // points de base
+    private final char[] reponseNormalisee;
 
-    /** Seuil de distance Levenshtein relative pour accepter une réponse proche. */
-    private static final double LEVENSHTEIN_THRESHOLD = 0.25;
+    /**
+     * Seuil de distance Levenshtein relative pour accepter une réponse proche :
+     * distance / longueur max &lt;= 1 / DIVISEUR_SEUIL (soit 25 %).
+     */
+    private static final int DIVISEUR_SEUIL = 4;
+
+    /** Résultat de la comparaison d'une réponse. */
+    public enum Correspondance { EXACTE, FLOUE, FAUSSE }
+
+    /** Tampons de travail réutilisés par thread. */
+    private static final class Tampon {
+        char[] texte = new char[64];
+        int[] ligneA = new int[65];
+        int[] ligneB = new int[65];
+
+        void assurer(int n) {
+            if (texte.length < n) texte = new char[n];
+            if (ligneA.length < n + 1) {
+                ligneA = new int[n + 1];
+                ligneB = new int[n + 1];
+            }
+        }
+    }
+
+    private static final ThreadLocal<Tampon> TAMPON = ThreadLocal.withInitial(Tampon::new);
 
     public Question(String texte, String reponse) {
         this(texte, reponse, 1, 10);
@@ -24,6 +52,8 @@ public class Question {
         this.reponse = reponse;
         this.difficulty = Math.max(1, Math.min(3, difficulty));
         this.points = points > 0 ? points : 10;
+        char[] buf = new char[reponse.length()];
+        this.reponseNormalisee = Arrays.copyOf(buf, normaliser(reponse, buf));
     }
 
     public String getTexte() {
@@ -54,19 +84,27 @@ public class Question {
         }
     }
 
+    /**
+     * Compare une réponse à la réponse attendue (une seule normalisation).
+     */
+    public Correspondance verifier(String rep) {
+        if (rep == null) return Correspondance.FAUSSE;
+        Tampon t = TAMPON.get();
+        t.assurer(rep.length());
+        int lb = normaliser(rep, t.texte);
+        char[] a = reponseNormalisee;
+        if (egales(a, t.texte, lb)) return Correspondance.EXACTE;
+        // Correspondance floue
+        int seuil = Math.max(a.length, lb) / DIVISEUR_SEUIL;
+        return levenshteinBorne(a, t.texte, lb, seuil, t) <= seuil
+            ? Correspondance.FLOUE : Correspondance.FAUSSE;
+    }
+
     /**
      * Vérifie si la réponse est correcte (exacte OU floue).
      */
     public boolean estCorrecte(String rep) {
-        if (rep == null) return false;
-        String a = normaliser(reponse);
-        String b = normaliser(rep);
-        if (a.equals(b)) return true;
-        // Correspondance floue
-        int maxLen = Math.max(a.length(), b.length());
-        if (maxLen == 0) return true;
-        int dist = levenshtein(a, b);
-        return (double) dist / maxLen <= LEVENSHTEIN_THRESHOLD;
+        return verifier(rep) != Correspondance.FAUSSE;
     }
 
     /**
@@ -74,41 +112,94 @@ public class Question {
      */
     public boolean estCorrecteExacte(String rep) {
         if (rep == null) return false;
-        return normaliser(reponse).equals(normaliser(rep));
+        Tampon t = TAMPON.get();
+        t.assurer(rep.length());
+        return egales(reponseNormalisee, t.texte, normaliser(rep, t.texte));
     }
 
     // --- Helpers ---
 
-    private static String normaliser(String s) {
-        return s.trim().toLowerCase(Locale.ROOT)
-            .replaceAll("[àáâãäå]", "a")
-            .replaceAll("[èéêë]", "e")
-            .replaceAll("[ìíîï]", "i")
-            .replaceAll("[òóôõö]", "o")
-            .replaceAll("[ùúûü]", "u")
-            .replaceAll("[ç]", "c")
-            .replaceAll("[^a-z0-9 ]", "")
-            .replaceAll("\\s+", " ");
+    /**
+     * Normalisation en une passe : trim, minuscules, accents retirés, seuls
+     * [a-z0-9 ] conservés, espaces consécutifs fusionnés.
+     * Écrit le résultat dans {@code dest} (taille &gt;= s.length()) et retourne sa longueur.
+     */
+    static int normaliser(String s, char[] dest) {
+        int debut = 0;
+        int fin = s.length();
+        while (debut < fin && s.charAt(debut) <= ' ') debut++;
+        while (fin > debut && s.charAt(fin - 1) <= ' ') fin--;
+
+        int n = 0;
+        for (int i = debut; i < fin; i++) {
+            char c = replier(Character.toLowerCase(s.charAt(i)));
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                dest[n++] = c;
+            } else if (c == ' ' && (n == 0 || dest[n - 1] != ' ')) {
+                dest[n++] = c;
+            }
+        }
+        return n;
+    }
+
+    /** Retire les accents français courants (déjà en minuscules). */
+    private static char replier(char c) {
+        switch (c) {
+            case 'à': case 'á': case 'â': case 'ã': case 'ä': case 'å': return 'a';
+            case 'è': case 'é': case 'ê': case 'ë': return 'e';
+            case 'ì': case 'í': case 'î': case 'ï': return 'i';
+            case 'ò': case 'ó': case 'ô': case 'õ': case 'ö': return 'o';
+            case 'ù': case 'ú': case 'û': case 'ü': return 'u';
+            case 'ç': return 'c';
+            default:  return c;
+        }
+    }
+
+    private static boolean egales(char[] a, char[] b, int lb) {
+        if (a.length != lb) return false;
+        for (int i = 0; i < lb; i++) {
+            if (a[i] != b[i]) return false;
+        }
+        return true;
     }
 
     /**
-     * Calcul de la distance de Levenshtein entre deux chaînes.
+     * Distance de Levenshtein bornée : deux lignes, calcul restreint à la bande
+     * |i - j| &lt;= seuil, arrêt dès que toute la ligne dépasse le seuil.
+     * Retourne une valeur &gt; seuil si la distance le dépasse.
      */
-    private static int levenshtein(String a, String b) {
-        int[][] dp = new int[a.length() + 1][b.length() + 1];
-        for (int i = 0; i <= a.length(); i++) dp[i][0] = i;
-        for (int j = 0; j <= b.length(); j++) dp[0][j] = j;
-
-        for (int i = 1; i <= a.length(); i++) {
-            for (int j = 1; j <= b.length(); j++) {
-                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
-                dp[i][j] = Math.min(
-                    Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                    dp[i - 1][j - 1] + cost
-                );
+    private static int levenshteinBorne(char[] a, char[] b, int lb, int seuil, Tampon t) {
+        int la = a.length;
+        int inf = seuil + 1;
+        if (Math.abs(la - lb) > seuil) return inf;
+
+        int[] prec = t.ligneA;
+        int[] cour = t.ligneB;
+        for (int j = 0; j <= lb; j++) prec[j] = j <= seuil ? j : inf;
+
+        for (int i = 1; i <= la; i++) {
+            int jMin = Math.max(1, i - seuil);
+            int jMax = Math.min(lb, i + seuil);
+            cour[0] = i <= seuil ? i : inf;
+            if (jMin > 1) cour[jMin - 1] = inf;
+            int minLigne = jMin == 1 ? cour[0] : inf;
+
+            char ca = a[i - 1];
+            for (int j = jMin; j <= jMax; j++) {
+                int cout = ca == b[j - 1] ? 0 : 1;
+                int v = Math.min(Math.min(prec[j] + 1, cour[j - 1] + 1), prec[j - 1] + cout);
+                if (v > inf) v = inf;
+                cour[j] = v;
+                if (v < minLigne) minLigne = v;
             }
+            if (jMax < lb) cour[jMax + 1] = inf;
+            if (minLigne > seuil) return inf;
+
+            int[] tmp = prec;
+            prec = cour;
+            cour = tmp;
         }
-        return dp[a.length()][b.length()];
+        return prec[lb];
     }
 
     @Override
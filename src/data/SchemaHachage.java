@@ -0,0 +1,67 @@
+package data;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Locale;
+
+/**
+ * Schéma de hachage des mots de passe.
+ *
+ * <p>Le nom du schéma est enregistré avec chaque utilisateur ({@code "algo"}) :
+ * les comptes créés avec un schéma plus faible restent vérifiables et sont
+ * re-hachés avec le schéma courant à leur prochaine connexion réussie.</p>
+ */
+public enum SchemaHachage {
+
+    /** Un seul tour de SHA-256 salé (format historique, sans champ "algo"). */
+    SHA256 {
+        @Override
+        public byte[] hacher(byte[] sel, String motDePasse, int iterations) {
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-256");
+                md.update(sel);
+                md.update(motDePasse.getBytes(StandardCharsets.UTF_8));
+                return md.digest();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    },
+
+    /** PBKDF2-HMAC-SHA256, nombre d'itérations configurable. */
+    PBKDF2 {
+        @Override
+        public byte[] hacher(byte[] sel, String motDePasse, int iterations) {
+            PBEKeySpec spec = new PBEKeySpec(motDePasse.toCharArray(), sel, Math.max(1, iterations), 256);
+            try {
+                return SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                spec.clearPassword();
+            }
+        }
+    };
+
+    /** Itérations PBKDF2 par défaut. */
+    public static final int ITERATIONS_DEFAUT = 120_000;
+
+    public abstract byte[] hacher(byte[] sel, String motDePasse, int iterations);
+
+    /**
+     * Schéma depuis son nom ({@code PBKDF2} par défaut, {@code SHA256}/{@code SHA-256}).
+     */
+    public static SchemaHachage depuisNom(String nom) {
+        if (nom == null) return PBKDF2;
+        switch (nom.trim().toUpperCase(Locale.ROOT)) {
+            case "SHA256":
+            case "SHA-256":
+                return SHA256;
+            default:
+                return PBKDF2;
+        }
+    }
+}
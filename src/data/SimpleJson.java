@@ -1,9 +1,13 @@
 package data;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.util.*;
 
 /**
  * Parseur et sérialiseur JSON minimal — aucune dépendance externe.
+ * Pour les gros documents, voir les variantes en flux {@link JsonReader} / {@link JsonWriter}.
  */
 public class SimpleJson {
 
@@ -22,6 +26,13 @@ public class SimpleJson {
         return new SimpleJson(json).readValue();
     }
 
+    /** Parse en flux, sans charger le texte complet en mémoire. */
+    public static Object parse(Reader in) throws IOException {
+        JsonReader r = new JsonReader(in);
+        if (r.peek() == JsonReader.Jeton.FIN) return new LinkedHashMap<>();
+        return r.lireValeur();
+    }
+
     private Object readValue() {
         ws();
         char c = peek();
@@ -153,6 +164,11 @@ public class SimpleJson {
         return write(obj, 0);
     }
 
+    /** Sérialise en flux (même mise en forme que {@link #stringify(Object)}). */
+    public static void stringify(Object obj, Writer out) throws IOException {
+        new JsonWriter(out).valeur(obj).flush();
+    }
+
     @SuppressWarnings("unchecked")
     private static String write(Object o, int d) {
         if (o == null)            return "null";
@@ -164,6 +180,40 @@ public class SimpleJson {
         return esc(o.toString());
     }
 
+    /**
+     * Sérialisation compacte sur une seule ligne (enregistrements de journal).
+     */
+    public static String stringifyCompact(Object obj) {
+        StringBuilder sb = new StringBuilder();
+        writeCompact(obj, sb);
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeCompact(Object o, StringBuilder sb) {
+        if (o instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> e : ((Map<String, Object>) o).entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                sb.append(esc(e.getKey())).append(':');
+                writeCompact(e.getValue(), sb);
+            }
+            sb.append('}');
+        } else if (o instanceof List) {
+            sb.append('[');
+            List<Object> l = (List<Object>) o;
+            for (int i = 0; i < l.size(); i++) {
+                if (i > 0) sb.append(',');
+                writeCompact(l.get(i), sb);
+            }
+            sb.append(']');
+        } else {
+            sb.append(write(o, 0));
+        }
+    }
+
     private static String numStr(Number n) {
         if (n instanceof Double || n instanceof Float) {
             double v = n.doubleValue();
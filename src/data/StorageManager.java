@@ -1,27 +1,112 @@
 package data;
 
 import java.io.*;
+import java.nio.channels.FileLock;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.function.UnaryOperator;
 
 /**
  * Gestionnaire centralisé du fichier storage.json.
  *
- * <p>Chaque lecture utilise un cache en mémoire.
- * Chaque écriture relit le fichier disque, fusionne la section modifiée,
- * puis écrit atomiquement (tmp + rename) pour minimiser les conflits
- * entre processus.</p>
+ * <p>Chaque lecture utilise un cache en mémoire. Deux moteurs d'écriture :
+ * <ul>
+ *   <li><b>SNAPSHOT</b> : chaque écriture relit le fichier disque, applique la
+ *       modification, puis réécrit atomiquement tout le fichier (tmp + rename).</li>
+ *   <li><b>JOURNAL</b> : chaque écriture ajoute un enregistrement compact à
+ *       {@code storage.json.journal} (coût proportionnel à la modification).
+ *       Le journal est rejoué au démarrage et compacté périodiquement dans le
+ *       snapshot. Un verrou fichier rend le journal partageable entre processus.</li>
+ * </ul>
+ *
+ * <p>Écriture différée (write-behind) : si un intervalle est configuré, les
+ * mutations sont appliquées au cache immédiatement puis mises en file ; les
+ * mutations d'une même section sont fusionnées et écrites par lot par un thread
+ * dédié (à intervalle régulier, dès que le seuil du lot est atteint, et à l'arrêt
+ * de la JVM). La politique fsync ({@code NONE}, {@code BATCH}, {@code ALWAYS})
+ * règle la durabilité de chaque lot.</p>
+ *
+ * <p>Verrous : le moniteur de l'instance protège le cache et la file ;
+ * {@code verrouDisque} sérialise les accès au fichier et au journal. Il est
+ * toujours pris avant le moniteur, qui n'est jamais tenu pendant une I/O
+ * d'écriture différée.</p>
  */
 public class StorageManager {
 
+    public static final String MOTEUR_SNAPSHOT = "SNAPSHOT";
+    public static final String MOTEUR_JOURNAL = "JOURNAL";
+
+    /** Clé du snapshot indiquant la génération de journal déjà absorbée. */
+    private static final String CLE_GENERATION = "_journal";
+    private static final int SEUIL_COMPACTION_DEFAUT = 500;
+
+    public static final String FSYNC_NONE = "NONE";
+    public static final String FSYNC_BATCH = "BATCH";
+    public static final String FSYNC_ALWAYS = "ALWAYS";
+
     private final Path path;
+    private final JournalStockage journal;
+    private final int seuilCompaction;
+    private final String politiqueFsync;
     private Map<String, Object> cache;
 
+    // --- Écriture différée ---
+    private final long intervalleEcritureMs;
+    private final int seuilLot;
+    private final Object verrouDisque = new Object();
+    private Map<String, Mutation> enAttente = new LinkedHashMap<>();
+    /** Lot retiré de la file mais pas encore écrit (à réappliquer après un rechargement). */
+    private List<Mutation> lotEnCours = List.of();
+    private long sequenceAttente;
+    private Thread ecrivain;
+
     public StorageManager(String chemin) {
+        this(chemin, MOTEUR_SNAPSHOT, SEUIL_COMPACTION_DEFAUT, 0, 0, FSYNC_NONE);
+    }
+
+    public StorageManager(String chemin, String moteur, int seuilCompaction) {
+        this(chemin, moteur, seuilCompaction, 0, 0, FSYNC_NONE);
+    }
+
+    /**
+     * @param intervalleEcritureMs 0 pour des écritures synchrones, sinon délai max avant écriture d'un lot
+     * @param seuilLot             nombre de mutations en attente déclenchant une écriture anticipée
+     * @param politiqueFsync       {@code NONE}, {@code BATCH} (un fsync par lot) ou {@code ALWAYS}
+     */
+    public StorageManager(String chemin, String moteur, int seuilCompaction,
+                          long intervalleEcritureMs, int seuilLot, String politiqueFsync) {
         this.path = Paths.get(chemin);
-        this.cache = lireFichier();
-        System.out.println("✓ StorageManager chargé depuis " + chemin);
+        this.seuilCompaction = seuilCompaction > 0 ? seuilCompaction : SEUIL_COMPACTION_DEFAUT;
+        this.politiqueFsync = politiqueFsync == null ? FSYNC_NONE : politiqueFsync.toUpperCase();
+        this.intervalleEcritureMs = Math.max(0, intervalleEcritureMs);
+        this.seuilLot = seuilLot > 0 ? seuilLot : 256;
+        this.journal = MOTEUR_JOURNAL.equalsIgnoreCase(moteur) ? ouvrirJournal() : null;
+        if (journal != null) {
+            this.cache = new LinkedHashMap<>();
+            sousVerrou(this::rechargerDepuisJournal);
+        } else {
+            this.cache = lireFichier();
+        }
+        if (this.intervalleEcritureMs > 0) {
+            demarrerEcrivain();
+        }
+        System.out.println("✓ StorageManager chargé depuis " + chemin
+            + (journal != null ? " (journal)" : "")
+            + (this.intervalleEcritureMs > 0 ? " (écriture différée " + this.intervalleEcritureMs + " ms)" : ""));
+    }
+
+    /** Mutation élémentaire d'un chemin du document. */
+    private static final class Mutation {
+        final String op;
+        final List<String> chemin;
+        Object valeur;
+
+        Mutation(String op, List<String> chemin, Object valeur) {
+            this.op = op;
+            this.chemin = chemin;
+            this.valeur = valeur;
+        }
     }
 
     // ─────────────── Lecture (depuis le cache) ───────────────
@@ -44,67 +129,525 @@ public class StorageManager {
         return new LinkedHashMap<>();
     }
 
-    // ─────────── Écriture (read-modify-write atomique) ───────────
+    // ─────────────────────────── Écriture ───────────────────────────
 
     /**
-     * Met à jour une section de premier niveau et sauvegarde.
+     * Remplace une section de premier niveau et sauvegarde.
      */
-    public synchronized void sauvegarder(String section, Object value) {
-        Map<String, Object> fresh = lireFichier();
-        fresh.put(section, value);
-        ecrireAtomic(fresh);
-        this.cache = fresh;
+    public void sauvegarder(String section, Object value) {
+        muter("set", List.of(section), value);
+    }
+
+    /**
+     * Remplace une sous-clé à l'intérieur de "scores_partitions".
+     */
+    public void sauvegarderPartition(String partitionKey, Object value) {
+        muter("set", List.of("scores_partitions", partitionKey), value);
+    }
+
+    /**
+     * Ajoute ou remplace quelques entrées d'une section de type objet.
+     */
+    public void fusionnerEntrees(String section, Map<String, ?> entrees) {
+        if (entrees.isEmpty()) return;
+        muter("merge", List.of(section), new LinkedHashMap<>(entrees));
+    }
+
+    /**
+     * Ajoute ou remplace quelques entrées d'une partition de "scores_partitions".
+     */
+    public void fusionnerEntreesPartition(String partitionKey, Map<String, ?> entrees) {
+        if (entrees.isEmpty()) return;
+        muter("merge", List.of("scores_partitions", partitionKey), new LinkedHashMap<>(entrees));
+    }
+
+    /**
+     * Ajoute des éléments à la fin d'une section de type liste.
+     */
+    public void ajouterElements(String section, List<?> elements) {
+        if (elements.isEmpty()) return;
+        muter("append", List.of(section), new ArrayList<>(elements));
+    }
+
+    /**
+     * Réécrit quelques sections à partir de leur état disque courant, relu sous
+     * le verrou fichier : les éléments ajoutés entre-temps par d'autres
+     * processus sont vus par {@code modif} au lieu d'être écrasés. Les
+     * mutations différées en attente sont écrites d'abord.
+     *
+     * @param sections sections de premier niveau passées à {@code modif} (copies)
+     * @param modif    reçoit l'état courant des sections, retourne les valeurs à écrire
+     * @return false si l'écriture n'a pas abouti
+     */
+    public boolean modifierSections(Collection<String> sections,
+                                    UnaryOperator<Map<String, Object>> modif) {
+        synchronized (verrouDisque) {
+            List<Mutation> lot;
+            synchronized (this) {
+                lot = new ArrayList<>(enAttente.values());
+                enAttente = new LinkedHashMap<>();
+                lotEnCours = lot;
+            }
+            int[] ecrites = {0};
+            boolean[] fait = {false};
+            if (journal == null) {
+                Map<String, Object> fresh = lireFichier();
+                for (Mutation m : lot) appliquer(fresh, m.op, m.chemin, m.valeur);
+                fresh.putAll(modif.apply(extraire(fresh, sections)));
+                if (ecrireAtomic(fresh)) {
+                    ecrites[0] = lot.size();
+                    fait[0] = true;
+                    synchronized (this) {
+                        this.cache = fresh;
+                        reappliquer(enAttente.values());
+                    }
+                }
+            } else {
+                sousVerrou(() -> {
+                    rafraichirDepuisJournal();
+                    for (Mutation m : lot) {
+                        journal.ajouter(ligneJournal(m.op, m.chemin, m.valeur));
+                        if (FSYNC_ALWAYS.equals(politiqueFsync)) journal.synchroniser();
+                        ecrites[0]++;
+                    }
+                    Map<String, Object> actuelles;
+                    synchronized (this) {
+                        actuelles = extraire(cache, sections);
+                    }
+                    Map<String, Object> valeurs = modif.apply(actuelles);
+                    for (Map.Entry<String, Object> e : valeurs.entrySet()) {
+                        journal.ajouter(ligneJournal("set", List.of(e.getKey()), e.getValue()));
+                        if (FSYNC_ALWAYS.equals(politiqueFsync)) journal.synchroniser();
+                    }
+                    if (FSYNC_BATCH.equals(politiqueFsync)) journal.synchroniser();
+                    fait[0] = true;
+                    synchronized (this) {
+                        // Les mutations différées arrivées pendant l'I/O restent à appliquer par-dessus
+                        for (Map.Entry<String, Object> e : valeurs.entrySet()) cache.put(e.getKey(), copier(e.getValue()));
+                        for (Mutation m : enAttente.values()) {
+                            if (valeurs.containsKey(m.chemin.get(0))) appliquer(cache, m.op, m.chemin, copier(m.valeur));
+                        }
+                    }
+                    if (journal.getNbEnregistrements() >= seuilCompaction) {
+                        compacterSousVerrou();
+                    }
+                });
+            }
+            synchronized (this) {
+                lotEnCours = List.of();
+                if (ecrites[0] < lot.size()) {
+                    remettreEnTete(lot.subList(ecrites[0], lot.size()));
+                }
+            }
+            return fait[0];
+        }
+    }
+
+    /**
+     * Recharge le cache depuis le disque.
+     */
+    public void recharger() {
+        synchronized (verrouDisque) {
+            if (journal != null) {
+                sousVerrou(this::rafraichirDepuisJournal);
+                return;
+            }
+            Map<String, Object> fresh = lireFichier();
+            synchronized (this) {
+                this.cache = fresh;
+                reappliquer(enAttente.values());
+            }
+        }
+    }
+
+    /**
+     * Force l'intégration du journal dans le snapshot.
+     */
+    public void compacter() {
+        vider();
+        if (journal == null) return;
+        synchronized (verrouDisque) {
+            sousVerrou(() -> {
+                rafraichirDepuisJournal();
+                compacterSousVerrou();
+            });
+        }
+    }
+
+    /**
+     * Écrit immédiatement les mutations différées en attente.
+     *
+     * <p>La file est échangée sous le moniteur, puis le lot est écrit sans le
+     * tenir : lectures et mutations continuent pendant l'I/O. Un lot dont
+     * l'écriture échoue est remis en tête de file.</p>
+     */
+    public void vider() {
+        synchronized (verrouDisque) {
+            List<Mutation> lot;
+            synchronized (this) {
+                if (enAttente.isEmpty()) return;
+                lot = new ArrayList<>(enAttente.values());
+                enAttente = new LinkedHashMap<>();
+                lotEnCours = lot;
+            }
+            int ecrites = ecrireLot(lot, true);
+            synchronized (this) {
+                lotEnCours = List.of();
+                if (ecrites < lot.size()) {
+                    remettreEnTete(lot.subList(ecrites, lot.size()));
+                }
+            }
+        }
+    }
+
+    private void muter(String op, List<String> chemin, Object valeur) {
+        if (intervalleEcritureMs == 0) {
+            synchronized (verrouDisque) {
+                ecrireLot(List.of(new Mutation(op, chemin, valeur)), false);
+            }
+            return;
+        }
+        synchronized (this) {
+            appliquer(cache, op, chemin, valeur);
+            mettreEnAttente(new Mutation(op, chemin, copier(valeur)));
+            if (enAttente.size() >= seuilLot) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Écrit un lot de mutations sur disque. L'appelant détient {@code verrouDisque}.
+     * @param dejaEnCache true si les mutations ont déjà été appliquées au cache (écriture différée)
+     * @return nombre de mutations du lot effectivement écrites (en tête du lot)
+     */
+    private int ecrireLot(List<Mutation> lot, boolean dejaEnCache) {
+        if (journal == null) {
+            Map<String, Object> fresh = lireFichier();
+            for (Mutation m : lot) appliquer(fresh, m.op, m.chemin, m.valeur);
+            if (!ecrireAtomic(fresh)) return 0;
+            synchronized (this) {
+                this.cache = fresh;
+                reappliquer(enAttente.values());
+            }
+            return lot.size();
+        }
+
+        List<String> lignes = new ArrayList<>(lot.size());
+        for (Mutation m : lot) lignes.add(ligneJournal(m.op, m.chemin, m.valeur));
+
+        int[] ecrites = {0};
+        sousVerrou(() -> {
+            rafraichirDepuisJournal();
+            for (String ligne : lignes) {
+                journal.ajouter(ligne);
+                if (FSYNC_ALWAYS.equals(politiqueFsync)) journal.synchroniser();
+                ecrites[0]++;
+            }
+            if (FSYNC_BATCH.equals(politiqueFsync)) journal.synchroniser();
+            if (!dejaEnCache) {
+                synchronized (this) {
+                    for (Mutation m : lot) appliquer(cache, m.op, m.chemin, m.valeur);
+                }
+            }
+            if (journal.getNbEnregistrements() >= seuilCompaction) {
+                compacterSousVerrou();
+            }
+        });
+        return ecrites[0];
+    }
+
+    private static String ligneJournal(String op, List<String> chemin, Object valeur) {
+        Map<String, Object> rec = new LinkedHashMap<>();
+        rec.put("op", op);
+        rec.put("path", new ArrayList<>(chemin));
+        rec.put("v", valeur);
+        return SimpleJson.stringifyCompact(rec);
+    }
+
+    // ─────────────────────── Écriture différée ───────────────────────
+
+    /**
+     * Ajoute une mutation à la file en la fusionnant avec celle déjà en attente
+     * sur le même chemin quand c'est possible.
+     */
+    @SuppressWarnings("unchecked")
+    private void mettreEnAttente(Mutation m) {
+        String cle = String.join("/", m.chemin);
+        Mutation p = enAttente.get(cle);
+        if (p == null || "set".equals(m.op)) {
+            enAttente.remove(cle);
+            enAttente.put(cle, m);
+        } else if ("merge".equals(m.op) && p.valeur instanceof Map
+                && ("merge".equals(p.op) || "set".equals(p.op))) {
+            ((Map<String, Object>) p.valeur).putAll((Map<String, Object>) m.valeur);
+        } else if ("append".equals(m.op) && p.valeur instanceof List
+                && ("append".equals(p.op) || "set".equals(p.op))) {
+            ((List<Object>) p.valeur).addAll((List<Object>) m.valeur);
+        } else {
+            enAttente.put(cle + "#" + (++sequenceAttente), m);
+        }
+    }
+
+    /**
+     * Remet en tête de file un lot dont l'écriture a échoué ; les mutations
+     * arrivées entre-temps sont refusionnées derrière lui.
+     */
+    private void remettreEnTete(List<Mutation> lot) {
+        Map<String, Mutation> recentes = enAttente;
+        enAttente = new LinkedHashMap<>();
+        for (Mutation m : lot) mettreEnAttente(m);
+        for (Mutation m : recentes.values()) mettreEnAttente(m);
     }
 
     /**
-     * Met à jour une sous-clé à l'intérieur de "scores_partitions".
+     * Réapplique au cache des mutations pas encore sur disque, après que le
+     * cache a été remplacé par un état relu. Appelé sous le moniteur.
      */
+    private void reappliquer(Collection<Mutation> mutations) {
+        for (Mutation m : mutations) appliquer(cache, m.op, m.chemin, copier(m.valeur));
+    }
+
+    /** Copies des sections demandées (celles absentes du document sont omises). */
+    private static Map<String, Object> extraire(Map<String, Object> racine, Collection<String> sections) {
+        Map<String, Object> extrait = new LinkedHashMap<>();
+        for (String section : sections) {
+            Object v = racine.get(section);
+            if (v != null) extrait.put(section, copier(v));
+        }
+        return extrait;
+    }
+
+    /** Copie de surface pour que la file ne partage pas ses conteneurs avec le cache. */
     @SuppressWarnings("unchecked")
-    public synchronized void sauvegarderPartition(String partitionKey, Object value) {
+    private static Object copier(Object valeur) {
+        if (valeur instanceof Map) return new LinkedHashMap<>((Map<String, Object>) valeur);
+        if (valeur instanceof List) return new ArrayList<>((List<Object>) valeur);
+        return valeur;
+    }
+
+    private void demarrerEcrivain() {
+        ecrivain = new Thread(this::boucleEcrivain, "StorageWriter");
+        ecrivain.setDaemon(true);
+        ecrivain.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::vider, "StorageFlush"));
+    }
+
+    private void boucleEcrivain() {
+        while (true) {
+            try {
+                synchronized (this) {
+                    if (enAttente.size() < seuilLot) {
+                        wait(intervalleEcritureMs);
+                    }
+                }
+            } catch (InterruptedException e) {
+                vider();
+                return;
+            }
+            vider();
+        }
+    }
+
+    // ─────────────────────────── Journal ───────────────────────────
+
+    private interface ActionIO {
+        void executer() throws IOException;
+    }
+
+    private JournalStockage ouvrirJournal() {
+        try {
+            return new JournalStockage(path.resolveSibling(path.getFileName() + ".journal"));
+        } catch (IOException e) {
+            System.err.println("Journal indisponible, moteur SNAPSHOT utilisé: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Exécute une action sous le verrou fichier ; false si elle a échoué. */
+    private boolean sousVerrou(ActionIO action) {
+        try {
+            FileLock verrou = journal.verrouiller();
+            try {
+                action.executer();
+            } finally {
+                verrou.release();
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erreur journal storage: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Snapshot + rejeu complet du journal (si pas déjà absorbé par le snapshot). */
+    private Map<String, Object> lireEtatDisque() throws IOException {
         Map<String, Object> fresh = lireFichier();
-        Object pObj = fresh.get("scores_partitions");
-        Map<String, Object> partitions = pObj instanceof Map
-                ? new LinkedHashMap<>((Map<String, Object>) pObj)
-                : new LinkedHashMap<>();
-        partitions.put(partitionKey, value);
-        fresh.put("scores_partitions", partitions);
-        ecrireAtomic(fresh);
-        this.cache = fresh;
+        long absorbee = SimpleJson.toLong(fresh.remove(CLE_GENERATION), -1);
+        List<String> enregistrements = journal.lireTout();
+        if (absorbee == journal.getGeneration()) {
+            // Compaction interrompue après l'écriture du snapshot
+            journal.reinitialiser();
+        } else {
+            for (String l : enregistrements) rejouer(fresh, l);
+        }
+        return fresh;
     }
 
     /**
-     * Recharge le cache depuis le disque.
+     * Remplace le cache par l'état disque, puis réapplique le lot en cours
+     * d'écriture et la file : sans cela, les écritures différées de ce
+     * processus disparaîtraient de la mémoire jusqu'au prochain rechargement.
      */
-    public synchronized void recharger() {
-        this.cache = lireFichier();
+    private void rechargerDepuisJournal() throws IOException {
+        Map<String, Object> fresh = lireEtatDisque();
+        synchronized (this) {
+            this.cache = fresh;
+            reappliquer(lotEnCours);
+            reappliquer(enAttente.values());
+        }
     }
 
-    // ─────────────────── I/O internes ───────────────────
+    /** Applique au cache les enregistrements écrits par les autres processus. */
+    private void rafraichirDepuisJournal() throws IOException {
+        if (journal.lireGenerationDisque() != journal.getGeneration()) {
+            rechargerDepuisJournal();
+            return;
+        }
+        List<String> nouveaux = journal.lireNouveaux();
+        if (nouveaux.isEmpty()) return;
+        synchronized (this) {
+            for (String l : nouveaux) rejouer(cache, l);
+        }
+    }
+
+    /**
+     * Le snapshot est reconstruit depuis le disque et non copié du cache :
+     * celui-ci contient des mutations différées pas encore journalisées, qui
+     * seraient rejouées une seconde fois après la compaction.
+     */
+    private void compacterSousVerrou() throws IOException {
+        Map<String, Object> snapshot = lireEtatDisque();
+        snapshot.put(CLE_GENERATION, journal.getGeneration());
+        if (!ecrireAtomic(snapshot)) throw new IOException("snapshot non écrit");
+        journal.reinitialiser();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void rejouer(Map<String, Object> racine, String ligne) {
+        try {
+            Object parsed = SimpleJson.parse(ligne);
+            if (!(parsed instanceof Map)) return;
+            Map<String, Object> rec = (Map<String, Object>) parsed;
+            List<String> chemin = new ArrayList<>();
+            for (Object o : (List<Object>) rec.get("path")) chemin.add(String.valueOf(o));
+            appliquer(racine, SimpleJson.toStr(rec.get("op"), ""), chemin, rec.get("v"));
+        } catch (RuntimeException e) {
+            System.err.println("Enregistrement de journal ignoré: " + e.getMessage());
+        }
+    }
 
+    /**
+     * Applique une mutation en place : "set" remplace, "merge" fusionne un objet,
+     * "append" ajoute à une liste.
+     */
     @SuppressWarnings("unchecked")
+    private static void appliquer(Map<String, Object> racine, String op, List<String> chemin, Object valeur) {
+        Map<String, Object> parent = racine;
+        for (int i = 0; i < chemin.size() - 1; i++) {
+            Object enfant = parent.get(chemin.get(i));
+            if (!(enfant instanceof Map)) {
+                enfant = new LinkedHashMap<String, Object>();
+                parent.put(chemin.get(i), enfant);
+            }
+            parent = (Map<String, Object>) enfant;
+        }
+        String cle = chemin.get(chemin.size() - 1);
+
+        switch (op) {
+            case "set":
+                parent.put(cle, valeur);
+                break;
+            case "merge": {
+                Object cible = parent.get(cle);
+                Map<String, Object> map = cible instanceof Map
+                    ? (Map<String, Object>) cible : new LinkedHashMap<>();
+                map.putAll((Map<String, Object>) valeur);
+                parent.put(cle, map);
+                break;
+            }
+            case "append": {
+                Object cible = parent.get(cle);
+                List<Object> list = cible instanceof List ? (List<Object>) cible : new ArrayList<>();
+                list.addAll((List<Object>) valeur);
+                parent.put(cle, list);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    // ─────────────────── I/O internes ───────────────────
+
+    /**
+     * Lecture en flux, section par section : le texte du fichier n'est jamais
+     * chargé en entier en mémoire.
+     */
     private Map<String, Object> lireFichier() {
         if (!Files.exists(path)) return structureVide();
-        try {
-            String content = Files.readString(path, StandardCharsets.UTF_8);
-            Object parsed = SimpleJson.parse(content);
-            if (parsed instanceof Map) return (Map<String, Object>) parsed;
+        try (JsonReader r = new JsonReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+            if (r.peek() != JsonReader.Jeton.DEBUT_OBJET) return structureVide();
+            Map<String, Object> data = new LinkedHashMap<>();
+            r.debutObjet();
+            while (r.aSuivant()) {
+                String section = r.lireNom();
+                data.put(section, r.lireValeur());
+            }
+            r.finObjet();
+            return data;
         } catch (Exception e) {
             System.err.println("Erreur lecture storage.json: " + e.getMessage());
         }
         return structureVide();
     }
 
-    private void ecrireAtomic(Map<String, Object> data) {
+    /** Écriture en flux, section par section, dans un fichier temporaire. */
+    private void ecrireSnapshot(Path cible, Map<String, Object> data) throws IOException {
+        try (JsonWriter w = new JsonWriter(Files.newBufferedWriter(cible, StandardCharsets.UTF_8))) {
+            if (data.isEmpty()) {
+                w.valeur(data);
+                return;
+            }
+            w.debutObjet();
+            for (Map.Entry<String, Object> e : data.entrySet()) {
+                w.nom(e.getKey());
+                w.valeur(e.getValue());
+            }
+            w.finObjet();
+        }
+    }
+
+    /** @return false si ni l'écriture atomique ni l'écriture directe n'ont abouti */
+    private boolean ecrireAtomic(Map<String, Object> data) {
         try {
             Path tmp = path.resolveSibling(path.getFileName().toString() + ".tmp");
-            Files.writeString(tmp, SimpleJson.stringify(data), StandardCharsets.UTF_8);
+            ecrireSnapshot(tmp, data);
+            if (!FSYNC_NONE.equals(politiqueFsync)) {
+                try (java.nio.channels.FileChannel fc = java.nio.channels.FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    fc.force(true);
+                }
+            }
             Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+            return true;
         } catch (IOException e) {
             System.err.println("Erreur sauvegarde storage.json: " + e.getMessage());
             try {
-                Files.writeString(path, SimpleJson.stringify(data), StandardCharsets.UTF_8);
+                ecrireSnapshot(path, data);
+                return true;
             } catch (IOException e2) {
                 System.err.println("Erreur fallback: " + e2.getMessage());
+                return false;
             }
         }
     }
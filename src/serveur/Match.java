@@ -7,10 +7,22 @@ import data.Question;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 
+/**
+ * Match multi-joueurs. Les réponses sont lues en parallèle par les threads de
+ * session ({@link PlayerSession#lireJusquaFinMatch()}) et arrivent dans une
+ * file unique : chaque question a une seule échéance commune, se ferme dès
+ * que tous les joueurs ont répondu, et le bonus de vitesse est mesuré depuis
+ * l'envoi de la question.
+ */
 public class Match {
     private final String theme;
     private final List<Question> questions;
@@ -20,6 +32,7 @@ public class Match {
     private final int roundTimerMs;
     private final BiConsumer<String, Integer> scoreRecorder;
     private final MatchHistory history;
+    private final BlockingQueue<PlayerSession.Reponse> reponses = new LinkedBlockingQueue<>();
 
     public Match(String theme, List<Question> questions, List<PlayerSession> joueurs,
                  int nbQuestions, int manches, int roundTimerMs,
@@ -42,6 +55,9 @@ public class Match {
 
     public void jouer() {
         String matchId = "M" + System.currentTimeMillis() + "-" + new Random().nextInt(1000);
+        for (PlayerSession p : joueurs) {
+            p.associer(reponses);
+        }
         broadcast("MATCH_START:ID=" + matchId + ";THEME=" + theme + ";PLAYERS=" + joueursListe()
             + ";ROUNDS=" + manches);
 
@@ -56,31 +72,12 @@ public class Match {
 
                 int basePoints = q.getPointsPonderes();
                 String diffLabel = difficultyLabel(q.getDifficulty());
+                reponses.clear(); // lignes tardives de la question précédente
+                long t0 = System.currentTimeMillis();
+                long timeout = Math.min(QUESTION_TIMEOUT_MS, roundDeadline - t0);
                 broadcast("QUESTION:[" + diffLabel + " +" + basePoints + "pts] " + q.getTexte());
 
-                for (PlayerSession p : joueurs) {
-                    try {
-                        long left = roundDeadline - System.currentTimeMillis();
-                        if (left <= 0) break;
-                        int timeout = (int) Math.min(QUESTION_TIMEOUT_MS, left);
-
-                        long t0 = System.currentTimeMillis();
-                        String rep = p.readLineWithTimeout(timeout);
-                        long elapsed = System.currentTimeMillis() - t0;
-
-                        if (rep != null && q.estCorrecte(rep)) {
-                            int earned = calculerPoints(basePoints, elapsed, timeout);
-                            boolean exact = q.estCorrecteExacte(rep);
-                            p.addScore(earned);
-                            p.send("CORRECT:" + (exact ? "EXACT" : "FUZZY")
-                                + ";PTS=" + earned + ";ELAPSED=" + elapsed + "ms");
-                        } else {
-                            p.send("WRONG:ANSWER=" + q.getReponse());
-                        }
-                    } catch (Exception e) {
-                        // Pas de réponse ou timeout
-                    }
-                }
+                collecterReponses(q, basePoints, t0, t0 + timeout);
             }
             broadcast("ROUND_END:" + manche + "/" + manches);
         }
@@ -109,6 +106,44 @@ public class Match {
         }
     }
 
+    /**
+     * Traite les réponses dans leur ordre d'arrivée, jusqu'à ce que tous les
+     * joueurs actifs aient répondu ou que l'échéance soit atteinte.
+     */
+    private void collecterReponses(Question q, int basePoints, long t0, long echeance) {
+        Set<PlayerSession> attendus = new LinkedHashSet<>();
+        for (PlayerSession p : joueurs) {
+            if (p.isActive()) attendus.add(p);
+        }
+        long timeout = echeance - t0;
+        while (!attendus.isEmpty()) {
+            long left = echeance - System.currentTimeMillis();
+            if (left <= 0) break;
+            PlayerSession.Reponse r;
+            try {
+                r = reponses.poll(left, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (r == null) break;
+            PlayerSession p = r.session;
+            if (!attendus.remove(p) || r.texte == null) continue; // déjà répondu ou déconnecté
+
+            long elapsed = Math.max(0, r.recueMs - t0);
+            Question.Correspondance c = q.verifier(r.texte);
+            if (c != Question.Correspondance.FAUSSE) {
+                int earned = calculerPoints(basePoints, elapsed, timeout);
+                boolean exact = c == Question.Correspondance.EXACTE;
+                p.addScore(earned);
+                p.send("CORRECT:" + (exact ? "EXACT" : "FUZZY")
+                    + ";PTS=" + earned + ";ELAPSED=" + elapsed + "ms");
+            } else {
+                p.send("WRONG:ANSWER=" + q.getReponse());
+            }
+        }
+    }
+
     /**
      * Calcule les points gagnés : base pondéré par difficulté + bonus de vitesse.
      * Plus le joueur répond vite, plus le bonus est élevé (jusqu'à +50%).
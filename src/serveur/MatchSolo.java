@@ -78,9 +78,10 @@ public class MatchSolo {
 
             tempsTotal += elapsed;
 
-            if (rep != null && q.estCorrecte(rep)) {
+            Question.Correspondance c = q.verifier(rep);
+            if (c != Question.Correspondance.FAUSSE) {
                 int earned = calculerPoints(basePoints, elapsed, QUESTION_TIMER_MS);
-                boolean exact = q.estCorrecteExacte(rep);
+                boolean exact = c == Question.Correspondance.EXACTE;
                 joueur.addScore(earned);
                 bonnes++;
                 comboActuel++;
@@ -1,12 +1,41 @@
 package serveur;
 
+import serveur.service.EcrivainSessions;
+
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Session TCP d'un joueur.
+ *
+ * <p>Avec un {@link EcrivainSessions}, {@link #send(String)} ne bloque jamais :
+ * les lignes passent par une file sortante bornée, écrite par lots (un seul
+ * vidage du tampon par lot) par une tâche d'écriture propre à la session. La
+ * fermeture a lieu une fois la file vidée. Sans écrivain, l'écriture est
+ * synchrone.</p>
+ */
 public class PlayerSession {
+    private static final String FIN_LIGNE = System.lineSeparator();
+
+    /** Ligne reçue d'un joueur pendant un match, horodatée à la réception (texte null : déconnexion). */
+    public static final class Reponse {
+        public final PlayerSession session;
+        public final String texte;
+        public final long recueMs;
+
+        Reponse(PlayerSession session, String texte, long recueMs) {
+            this.session = session;
+            this.texte = texte;
+            this.recueMs = recueMs;
+        }
+    }
+
     private final String username;
     private final String roomCode;
     private final Socket socket;
@@ -14,14 +43,28 @@ public class PlayerSession {
     private final PrintWriter out;
     private final CountDownLatch fin = new CountDownLatch(1);
     private volatile boolean closed = false;
+    /** File des réponses du match en cours (null avant le début du match). */
+    private volatile BlockingQueue<Reponse> boite;
     private int score = 0;
 
+    // --- Écriture asynchrone (null : synchrone) ---
+    private final EcrivainSessions ecrivain;
+    private final BlockingQueue<String> sortie;
+    private final AtomicBoolean ecritureEnCours = new AtomicBoolean();
+
     public PlayerSession(String username, String roomCode, Socket socket, BufferedReader in, PrintWriter out) {
+        this(username, roomCode, socket, in, out, null);
+    }
+
+    public PlayerSession(String username, String roomCode, Socket socket, BufferedReader in, PrintWriter out,
+                         EcrivainSessions ecrivain) {
         this.username = username;
         this.roomCode = roomCode;
         this.socket = socket;
         this.in = in;
         this.out = out;
+        this.ecrivain = ecrivain;
+        this.sortie = ecrivain != null ? new ArrayBlockingQueue<>(ecrivain.getCapacite()) : null;
     }
 
     public String getUsername() {
@@ -41,7 +84,22 @@ public class PlayerSession {
     }
 
     public void send(String msg) {
-        out.println(msg);
+        if (ecrivain == null) {
+            out.println(msg);
+            return;
+        }
+        if (closed) return;
+        if (!sortie.offer(msg)) {
+            consommateurLent();
+            return;
+        }
+        ecrivain.signalerProfondeur(sortie.size());
+        planifierEcriture();
+    }
+
+    /** Nombre de lignes en attente d'écriture vers le joueur. */
+    public int getProfondeurSortie() {
+        return sortie == null ? 0 : sortie.size();
     }
 
     public String readLineWithTimeout(int timeoutMs) throws IOException {
@@ -49,6 +107,34 @@ public class PlayerSession {
         return in.readLine();
     }
 
+    /** Les lignes reçues désormais sont déposées dans la file du match. */
+    public void associer(BlockingQueue<Reponse> boite) {
+        this.boite = boite;
+    }
+
+    /**
+     * Lit en continu les lignes du joueur, sur le thread de sa session, jusqu'à
+     * la fin du match : les réponses de tous les joueurs arrivent ainsi en
+     * parallèle dans la file du match. Une déconnexion ferme la session.
+     */
+    public void lireJusquaFinMatch() {
+        try {
+            socket.setSoTimeout(0);
+            String ligne;
+            while (fin.getCount() > 0 && (ligne = in.readLine()) != null) {
+                BlockingQueue<Reponse> b = boite;
+                if (b != null) b.offer(new Reponse(this, ligne, System.currentTimeMillis()));
+            }
+        } catch (IOException ignored) {
+            // Socket fermé en fin de match ou client déconnecté
+        }
+        if (fin.getCount() > 0) {
+            closeQuiet();
+            BlockingQueue<Reponse> b = boite;
+            if (b != null) b.offer(new Reponse(this, null, System.currentTimeMillis()));
+        }
+    }
+
     public void terminer() {
         fin.countDown();
     }
@@ -60,10 +146,59 @@ public class PlayerSession {
     public void closeQuiet() {
         if (closed) return;
         closed = true;
-        try { socket.close(); } catch (IOException ignored) {}
+        if (ecrivain == null) {
+            fermerSocket();
+        } else {
+            planifierEcriture(); // ferme le socket une fois la file vidée
+        }
     }
 
     public boolean isActive() {
         return !closed && !socket.isClosed();
     }
+
+    // --- File sortante ---
+
+    private void consommateurLent() {
+        if (!ecrivain.isDeconnecter()) {
+            ecrivain.compterAbandon();
+            return;
+        }
+        ecrivain.compterDeconnexion();
+        closed = true;
+        sortie.clear();
+        fermerSocket(); // débloque aussi une écriture en cours
+    }
+
+    private void planifierEcriture() {
+        if (ecritureEnCours.compareAndSet(false, true)) {
+            ecrivain.executer(this::viderSortie);
+        }
+    }
+
+    /** Écrit par lots tout ce qui est en file ; une seule tâche active par session. */
+    private void viderSortie() {
+        while (true) {
+            int n = 0;
+            for (String ligne; (ligne = sortie.poll()) != null; n++) {
+                out.write(ligne);
+                out.write(FIN_LIGNE);
+            }
+            if (n > 0) {
+                out.flush();
+                ecrivain.compterLot(n);
+            }
+            if (out.checkError() || (closed && sortie.isEmpty())) {
+                sortie.clear();
+                fermerSocket();
+            }
+            ecritureEnCours.set(false);
+            boolean reste = !sortie.isEmpty() || (closed && !socket.isClosed());
+            if (!reste || !ecritureEnCours.compareAndSet(false, true)) return;
+        }
+    }
+
+    private void fermerSocket() {
+        try { socket.close(); } catch (IOException ignored) {}
+    }
 }
@@ -0,0 +1,96 @@
+package serveur;
+
+import serveur.RegistreServeurs.InfoServeur;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Politique de choix d'un serveur esclave parmi ceux d'un thème.
+ *
+ * <p>La charge d'un serveur ({@link InfoServeur#getCharge()}) est la dernière
+ * valeur de sessions remontée par son heartbeat, augmentée des redirections
+ * faites depuis. Les politiques reçoivent le tableau d'index du registre
+ * (serveurs actifs ou non) et ne doivent pas le modifier.</p>
+ */
+public interface PolitiqueSelection {
+
+    /**
+     * @return le serveur actif choisi, ou null s'il n'y en a aucun
+     */
+    InfoServeur choisir(InfoServeur[] candidats);
+
+    /** Moins de connexions, puis le moins récemment choisi. */
+    PolitiqueSelection MOINS_CONNEXIONS = candidats -> {
+        InfoServeur choisi = null;
+        for (InfoServeur s : candidats) {
+            if (!s.actif) continue;
+            if (choisi == null || s.getCharge() < choisi.getCharge()
+                    || (s.getCharge() == choisi.getCharge() && s.dernierChoix < choisi.dernierChoix)) {
+                choisi = s;
+            }
+        }
+        return choisi;
+    };
+
+    /**
+     * Deux choix aléatoires (power of two choices) : le moins chargé de deux
+     * serveurs tirés au hasard. Évite que toutes les redirections simultanées
+     * visent le même serveur entre deux heartbeats.
+     */
+    PolitiqueSelection DEUX_CHOIX = candidats -> {
+        // Copie locale : un serveur désactivé entre le comptage et le tirage ne doit pas manquer
+        InfoServeur[] actifs = new InfoServeur[candidats.length];
+        int n = 0;
+        for (InfoServeur s : candidats) {
+            if (s.actif) actifs[n++] = s;
+        }
+        if (n == 0) return null;
+        if (n == 1) return actifs[0];
+
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        int i = r.nextInt(n);
+        int j = r.nextInt(n - 1);
+        if (j >= i) j++;
+        InfoServeur a = actifs[i];
+        InfoServeur b = actifs[j];
+        if (a.getCharge() != b.getCharge()) return a.getCharge() < b.getCharge() ? a : b;
+        return a.cpu <= b.cpu ? a : b;
+    };
+
+    /**
+     * Moins de connexions pondéré : minimise (charge + 1) / poids, pénalisé par
+     * l'occupation CPU remontée par l'esclave.
+     */
+    PolitiqueSelection PONDEREE = candidats -> {
+        InfoServeur choisi = null;
+        double meilleur = Double.MAX_VALUE;
+        for (InfoServeur s : candidats) {
+            if (!s.actif) continue;
+            double cout = (s.getCharge() + 1.0) / Math.max(1, s.poids) * (1.0 + s.cpu);
+            if (choisi == null || cout < meilleur
+                    || (cout == meilleur && s.dernierChoix < choisi.dernierChoix)) {
+                choisi = s;
+                meilleur = cout;
+            }
+        }
+        return choisi;
+    };
+
+    /**
+     * Politique depuis son nom : {@code LEAST_CONNECTIONS} (défaut),
+     * {@code POWER_OF_TWO} ou {@code WEIGHTED}.
+     */
+    static PolitiqueSelection depuisNom(String nom) {
+        if (nom == null) return MOINS_CONNEXIONS;
+        switch (nom.trim().toUpperCase(Locale.ROOT)) {
+            case "POWER_OF_TWO":
+            case "P2C":
+                return DEUX_CHOIX;
+            case "WEIGHTED":
+                return PONDEREE;
+            default:
+                return MOINS_CONNEXIONS;
+        }
+    }
+}
@@ -2,38 +2,79 @@ package serveur;
 
 import data.SimpleJson;
 import data.StorageManager;
+import serveur.service.AnneauHachage;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Registre des serveurs esclaves disponibles
  * Gère l'enregistrement, la charge et la sélection des serveurs
+ *
+ * <p>Lectures sans verrou : les serveurs sont indexés par thème dans des
+ * tableaux immuables republiés à chaque enregistrement, la charge est un
+ * compteur atomique et l'état (actif, heartbeat) des champs volatils. Seules
+ * les modifications structurelles (enregistrement, désactivation) sont
+ * sérialisées ; une redirection ne touche jamais le disque.</p>
+ *
+ * <p>La charge est recalée à chaque heartbeat sur le nombre de sessions
+ * remonté par l'esclave ; entre deux heartbeats, chaque redirection
+ * l'incrémente. Le choix est délégué à une {@link PolitiqueSelection}.</p>
+ *
+ * <p>La propriété des scores suit un {@link AnneauHachage} des esclaves
+ * actifs, republié dès que cet ensemble change.</p>
  */
 public class RegistreServeurs {
-    private Map<String, InfoServeur> serveurs = new HashMap<>();
+    private static final InfoServeur[] AUCUN = new InfoServeur[0];
+
+    private final Map<String, InfoServeur> serveurs = new ConcurrentHashMap<>();
+    /** Thème (minuscules) → serveurs de ce thème, actifs ou non. */
+    private final Map<String, InfoServeur[]> parTheme = new ConcurrentHashMap<>();
+    private final Object verrouEcriture = new Object();
     private final StorageManager storage;
-    private final int partitionMax;
+    private final PolitiqueSelection politique;
+    private final int noeudsVirtuels;
+    private volatile AnneauHachage anneau = AnneauHachage.VIDE;
+    private volatile String annuaire = "";
 
     public RegistreServeurs(StorageManager storage) {
+        this(storage, PolitiqueSelection.MOINS_CONNEXIONS, 64);
+    }
+
+    public RegistreServeurs(StorageManager storage, PolitiqueSelection politique, int noeudsVirtuels) {
         this.storage = storage;
-        this.partitionMax = chargerPartitionMax();
+        this.politique = politique;
+        this.noeudsVirtuels = noeudsVirtuels > 0 ? noeudsVirtuels : 64;
         charger();
+        reconstruireAnneau();
     }
 
     /**
      * Classe interne représentant les infos d'un serveur esclave
      */
     public static class InfoServeur {
-        String id;
-        String host;
-        int port;
-        String theme;
-        int charge; // nombre de clients actuels
-        boolean actif;
-        int partitionDebut; // pour le partitionnement des scores
-        int partitionFin;
-        long dernierHeartbeat;
-        long dernierChoix;
+        final String id;
+        final String host;
+        final int port;
+        final String theme;
+        final AtomicInteger charge = new AtomicInteger(); // nombre de clients actuels
+        volatile boolean actif;
+        final int partitionDebut; // pour le partitionnement des scores
+        final int partitionFin;
+        volatile long dernierHeartbeat;
+        volatile long dernierChoix;
+
+        // Métriques remontées par le heartbeat
+        volatile int sessionsActives;
+        volatile int joueursEnAttente;
+        volatile int matchsEnCours;
+        volatile double cpu;   // charge CPU système rapportée au nombre de cœurs (0..1+)
+        volatile double heap;  // fraction du tas utilisée (0..1)
+        volatile int poids = 1;
+        volatile int sortieMax;    // pic de file sortante d'une session depuis le heartbeat précédent
+        volatile long consommateursLents; // lignes abandonnées + sessions déconnectées (cumul)
+        volatile boolean sature;   // l'esclave fait attendre ses nouveaux joueurs (admission)
 
         public InfoServeur(String id, String host, int port, String theme, 
                           int partitionDebut, int partitionFin) {
@@ -41,7 +82,6 @@ public class RegistreServeurs {
             this.host = host;
             this.port = port;
             this.theme = theme;
-            this.charge = 0;
             this.actif = true;
             this.partitionDebut = partitionDebut;
             this.partitionFin = partitionFin;
@@ -49,10 +89,50 @@ public class RegistreServeurs {
             this.dernierChoix = 0L;
         }
 
+        public int getCharge() {
+            return charge.get();
+        }
+
+        private void appliquerMetriques(Map<String, String> m) {
+            Integer sessions = entier(m.get("SESSIONS"));
+            if (sessions != null) {
+                sessionsActives = sessions;
+                charge.set(sessions);
+            }
+            Integer attente = entier(m.get("QUEUE"));
+            if (attente != null) joueursEnAttente = attente;
+            Integer matchs = entier(m.get("MATCHS"));
+            if (matchs != null) matchsEnCours = matchs;
+            Double c = decimal(m.get("CPU"));
+            if (c != null) cpu = Math.max(0, c);
+            Double h = decimal(m.get("HEAP"));
+            if (h != null) heap = Math.max(0, h);
+            Integer p = entier(m.get("POIDS"));
+            if (p != null && p > 0) poids = p;
+            Integer sm = entier(m.get("SORTIE_MAX"));
+            if (sm != null) sortieMax = sm;
+            Integer lents = entier(m.get("LENTS"));
+            if (lents != null) consommateursLents = lents;
+            Integer s = entier(m.get("SATURE"));
+            if (s != null) sature = s != 0;
+        }
+
+        private static Integer entier(String v) {
+            if (v == null) return null;
+            try { return Integer.parseInt(v.trim()); }
+            catch (NumberFormatException e) { return null; }
+        }
+
+        private static Double decimal(String v) {
+            if (v == null) return null;
+            try { return Double.parseDouble(v.trim()); }
+            catch (NumberFormatException e) { return null; }
+        }
+
         @Override
         public String toString() {
             return id + ";" + host + ";" + port + ";" + theme + ";" + 
-                   charge + ";" + actif + ";" + partitionDebut + ";" + partitionFin;
+                   charge.get() + ";" + actif + ";" + partitionDebut + ";" + partitionFin;
         }
 
         public static InfoServeur fromString(String ligne) {
@@ -61,7 +141,7 @@ public class RegistreServeurs {
                 parts[0], parts[1], Integer.parseInt(parts[2]), 
                 parts[3], Integer.parseInt(parts[6]), Integer.parseInt(parts[7])
             );
-            info.charge = Integer.parseInt(parts[4]);
+            info.charge.set(Integer.parseInt(parts[4]));
             info.actif = Boolean.parseBoolean(parts[5]);
             info.dernierHeartbeat = System.currentTimeMillis();
             info.dernierChoix = 0L;
@@ -72,10 +152,13 @@ public class RegistreServeurs {
     /**
      * Enregistre un nouveau serveur esclave
      */
-    public synchronized void enregistrer(InfoServeur serveur) {
+    public void enregistrer(InfoServeur serveur) {
         serveur.dernierHeartbeat = System.currentTimeMillis();
-        serveurs.put(serveur.id, serveur);
-        sauvegarder();
+        synchronized (verrouEcriture) {
+            indexer(serveur);
+            reconstruireAnneau();
+            sauvegarder();
+        }
         System.out.println("✓ Serveur enregistré : " + serveur.id + 
                           " (theme=" + serveur.theme + ", partition=" + 
                           serveur.partitionDebut + "-" + serveur.partitionFin + ")");
@@ -83,16 +166,14 @@ public class RegistreServeurs {
 
     /**
      * Sélectionne le meilleur serveur pour un thème donné
-     * Algorithme : serveur du bon thème avec la charge la plus faible
+     * Algorithme : celui de la politique configurée, en un parcours des
+     * serveurs du thème (sans verrou ni tri).
      */
-    public synchronized InfoServeur selectionnerServeur(String theme) {
-        InfoServeur choisi = serveurs.values().stream()
-            .filter(s -> s.actif && s.theme.equalsIgnoreCase(theme))
-            .sorted(Comparator
-                .comparingInt((InfoServeur s) -> s.charge)
-                .thenComparingLong(s -> s.dernierChoix))
-            .findFirst()
-            .orElse(null);
+    public InfoServeur selectionnerServeur(String theme) {
+        InfoServeur[] candidats = parTheme.getOrDefault(cleTheme(theme), AUCUN);
+        // Les esclaves saturés ne sont choisis que si tous le sont
+        InfoServeur choisi = politique.choisir(nonSatures(candidats));
+        if (choisi == null) choisi = politique.choisir(candidats);
 
         if (choisi != null) {
             choisi.dernierChoix = System.currentTimeMillis();
@@ -100,84 +181,184 @@ public class RegistreServeurs {
         return choisi;
     }
 
+    /** Les candidats sans les serveurs saturés (le tableau lui-même si aucun ne l'est). */
+    private static InfoServeur[] nonSatures(InfoServeur[] candidats) {
+        int n = 0;
+        for (InfoServeur s : candidats) {
+            if (!s.sature) n++;
+        }
+        if (n == candidats.length) return candidats;
+        InfoServeur[] res = new InfoServeur[n];
+        int i = 0;
+        for (InfoServeur s : candidats) {
+            if (!s.sature) res[i++] = s;
+        }
+        return res;
+    }
+
     /**
      * Sélectionne le serveur responsable du stockage d'un score
-     * Basé sur le hachage du nom du joueur (stockage distribué)
+     * Basé sur l'anneau de hachage cohérent des esclaves actifs
+     */
+    public InfoServeur selectionnerServeurScore(String nomJoueur) {
+        String id = anneau.proprietaire(nomJoueur);
+        return id == null ? null : serveurs.get(id);
+    }
+
+    /**
+     * Anneau courant des esclaves actifs (immuable)
      */
-    public synchronized InfoServeur selectionnerServeurScore(String nomJoueur) {
-        int hash = Math.abs(nomJoueur.hashCode() % partitionMax); // partition 0-(max-1)
-        
-        return serveurs.values().stream()
-            .filter(s -> s.actif && hash >= s.partitionDebut && hash <= s.partitionFin)
-            .findFirst()
-            .orElse(null);
+    public AnneauHachage getAnneau() {
+        return anneau;
+    }
+
+    /**
+     * Adresses des esclaves actifs, pour le routage direct entre esclaves :
+     * "S1@host:port,S2@host:port"
+     */
+    public String getAnnuaire() {
+        return annuaire;
     }
 
     /**
      * Récupère tous les serveurs actifs
      */
-    public synchronized List<InfoServeur> getTousLesServeurs() {
+    public List<InfoServeur> getTousLesServeurs() {
         return new ArrayList<>(serveurs.values());
     }
 
     /**
-     * Incrémente la charge d'un serveur
+     * Incrémente la charge d'un serveur (en mémoire uniquement : la charge est
+     * persistée lors de la vérification périodique des heartbeats)
      */
-    public synchronized void incrementerCharge(String serveurId) {
+    public void incrementerCharge(String serveurId) {
         InfoServeur serveur = serveurs.get(serveurId);
         if (serveur != null) {
-            serveur.charge++;
-            sauvegarder();
+            serveur.charge.incrementAndGet();
         }
     }
 
     /**
      * Décrémente la charge d'un serveur
      */
-    public synchronized void decrementerCharge(String serveurId) {
+    public void decrementerCharge(String serveurId) {
         InfoServeur serveur = serveurs.get(serveurId);
         if (serveur != null) {
-            serveur.charge = Math.max(0, serveur.charge - 1);
-            sauvegarder();
+            serveur.charge.updateAndGet(c -> Math.max(0, c - 1));
         }
     }
 
     /**
      * Marque un serveur comme inactif
      */
-    public synchronized void desactiverServeur(String serveurId) {
+    public void desactiverServeur(String serveurId) {
         InfoServeur serveur = serveurs.get(serveurId);
         if (serveur != null) {
             serveur.actif = false;
-            sauvegarder();
+            synchronized (verrouEcriture) {
+                reconstruireAnneau();
+                sauvegarder();
+            }
         }
     }
 
     /**
      * Met à jour le heartbeat d'un serveur
      */
-    public synchronized void mettreAJourHeartbeat(String serveurId) {
+    public void mettreAJourHeartbeat(String serveurId) {
         InfoServeur serveur = serveurs.get(serveurId);
         if (serveur != null) {
             serveur.dernierHeartbeat = System.currentTimeMillis();
             if (!serveur.actif) {
                 serveur.actif = true;
+                synchronized (verrouEcriture) {
+                    reconstruireAnneau();
+                    sauvegarder();
+                }
             }
         }
     }
 
+    /**
+     * Met à jour le heartbeat d'un serveur avec les métriques qu'il remonte
+     * (SESSIONS, QUEUE, MATCHS, CPU, HEAP, POIDS ; toutes optionnelles)
+     */
+    public void mettreAJourHeartbeat(String serveurId, Map<String, String> metriques) {
+        InfoServeur serveur = serveurs.get(serveurId);
+        if (serveur != null) {
+            serveur.appliquerMetriques(metriques);
+            mettreAJourHeartbeat(serveurId);
+        }
+    }
+
     /**
      * Désactive les serveurs silencieux depuis trop longtemps
      */
-    public synchronized void desactiverServeursSilencieux(long delaiMs) {
+    public void desactiverServeursSilencieux(long delaiMs) {
         long maintenant = System.currentTimeMillis();
+        boolean desactive = false;
         for (InfoServeur serveur : serveurs.values()) {
             if (serveur.actif && (maintenant - serveur.dernierHeartbeat) > delaiMs) {
                 serveur.actif = false;
+                desactive = true;
                 System.out.println("⚠ Serveur inactif (timeout): " + serveur.id);
             }
         }
-        sauvegarder();
+        if (!desactive) return; // cas courant : ni anneau ni stockage à réécrire
+        synchronized (verrouEcriture) {
+            reconstruireAnneau();
+            sauvegarder();
+        }
+    }
+
+    // --- Anneau de hachage ---
+
+    /**
+     * Republie l'anneau si l'ensemble des esclaves actifs a changé, et l'annuaire
+     * (une adresse peut changer sans changer l'anneau). Appelé sous verrouEcriture.
+     */
+    private void reconstruireAnneau() {
+        List<String> actifs = new ArrayList<>();
+        StringJoiner adresses = new StringJoiner(",");
+        for (InfoServeur s : serveurs.values()) {
+            if (!s.actif) continue;
+            actifs.add(s.id);
+            adresses.add(s.id + "@" + s.host + ":" + s.port);
+        }
+        annuaire = adresses.toString();
+        AnneauHachage actuel = anneau;
+        AnneauHachage candidat = new AnneauHachage(actuel.getVersion() + 1, noeudsVirtuels, actifs);
+        if (!candidat.memeTopologie(actuel)) {
+            anneau = candidat;
+            System.out.println("↻ Anneau des scores v" + candidat.getVersion() + " : " + candidat.getMembres());
+        }
+    }
+
+    // --- Index par thème ---
+
+    private static String cleTheme(String theme) {
+        return theme == null ? "" : theme.toLowerCase(Locale.ROOT);
+    }
+
+    /** Ajoute ou remplace un serveur et republie les index concernés. Appelé sous verrouEcriture. */
+    private void indexer(InfoServeur serveur) {
+        InfoServeur ancien = serveurs.put(serveur.id, serveur);
+        if (ancien != null) {
+            retirerDuTheme(ancien);
+        }
+        parTheme.compute(cleTheme(serveur.theme), (k, tab) -> {
+            InfoServeur[] base = tab == null ? AUCUN : tab;
+            InfoServeur[] copie = Arrays.copyOf(base, base.length + 1);
+            copie[base.length] = serveur;
+            return copie;
+        });
+    }
+
+    private void retirerDuTheme(InfoServeur serveur) {
+        parTheme.computeIfPresent(cleTheme(serveur.theme), (k, tab) -> {
+            InfoServeur[] reste = Arrays.stream(tab).filter(s -> s != serveur).toArray(InfoServeur[]::new);
+            return reste.length == 0 ? null : reste;
+        });
     }
 
     /**
@@ -193,15 +374,15 @@ public class RegistreServeurs {
             int pDebut   = SimpleJson.toInt(m.get("partitionDebut"), 0);
             int pFin     = SimpleJson.toInt(m.get("partitionFin"), 0);
             InfoServeur info = new InfoServeur(id, host, port, theme, pDebut, pFin);
-            info.charge = SimpleJson.toInt(m.get("charge"), 0);
+            info.charge.set(SimpleJson.toInt(m.get("charge"), 0));
             info.actif  = SimpleJson.toBool(m.get("actif"), true);
             info.dernierHeartbeat = System.currentTimeMillis();
-            serveurs.put(id, info);
+            indexer(info);
         }
     }
 
     /**
-     * Sauvegarde le registre dans le fichier
+     * Sauvegarde le registre dans le fichier (sous verrouEcriture)
      */
     private void sauvegarder() {
         List<Map<String, Object>> list = new java.util.ArrayList<>();
@@ -211,7 +392,7 @@ public class RegistreServeurs {
             m.put("host", s.host);
             m.put("port", s.port);
             m.put("theme", s.theme);
-            m.put("charge", s.charge);
+            m.put("charge", s.charge.get());
             m.put("actif", s.actif);
             m.put("partitionDebut", s.partitionDebut);
             m.put("partitionFin", s.partitionFin);
@@ -226,23 +407,12 @@ public class RegistreServeurs {
     public void afficherEtat() {
         System.out.println("\n=== ÉTAT DES SERVEURS ===");
         serveurs.values().forEach(s -> {
-            System.out.printf("%s [%s:%d] Theme=%s Charge=%d Partition=%d-%d Actif=%s%n",
-                s.id, s.host, s.port, s.theme, s.charge, 
+            System.out.printf(Locale.ROOT,
+                "%s [%s:%d] Theme=%s Charge=%d Attente=%d Matchs=%d CPU=%.2f Heap=%.2f Poids=%d Sortie=%d Lents=%d Sature=%s Partition=%d-%d Actif=%s%n",
+                s.id, s.host, s.port, s.theme, s.charge.get(), s.joueursEnAttente, s.matchsEnCours,
+                s.cpu, s.heap, s.poids, s.sortieMax, s.consommateursLents, s.sature ? "oui" : "non",
                 s.partitionDebut, s.partitionFin, s.actif ? "✓" : "✗");
         });
         System.out.println("========================\n");
     }
-
-    private int chargerPartitionMax() {
-        String value = System.getenv("QUIZ_PARTITION_MAX");
-        if (value == null || value.isBlank()) {
-            return 100;
-        }
-        try {
-            int parsed = Integer.parseInt(value.trim());
-            return parsed > 0 ? parsed : 100;
-        } catch (NumberFormatException e) {
-            return 100;
-        }
-    }
 }
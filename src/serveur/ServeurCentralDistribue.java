@@ -3,13 +3,21 @@ package serveur;
 import data.StorageManager;
 import data.Themes;
 import serveur.model.ServerConfig;
+import serveur.service.AgregationScores;
+import serveur.service.CacheClassement;
+import serveur.service.CanalMultiplexe;
+import serveur.service.DiffusionRequetes;
+import serveur.service.PoolCanaux;
 import serveur.service.ProtocolParser;
 import serveur.service.ScoreService;
+import serveur.service.ServeurLignesNio;
 import serveur.view.ConsoleLogger;
 
 import java.io.*;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Serveur Maître (Controller MVC) — Gère la distribution et l'agrégation.
@@ -18,7 +26,7 @@ import java.util.*;
  * <ul>
  *   <li><b>Model</b>  : {@link ServerConfig}, {@link RegistreServeurs}, {@link ScoreService}</li>
  *   <li><b>View</b>   : {@link ConsoleLogger}</li>
- *   <li><b>Service</b> : {@link ProtocolParser}, {@link ScoreService}</li>
+ *   <li><b>Service</b> : {@link ProtocolParser}, {@link ScoreService}, {@link ServeurLignesNio}</li>
  * </ul>
  */
 public class ServeurCentralDistribue {
@@ -28,6 +36,11 @@ public class ServeurCentralDistribue {
     private final ScoreService scoreService;
     private final Themes themes;
     private final ConsoleLogger log;
+    private final PoolCanaux canauxEsclaves;
+    private final ExecutorService workersCoordination;
+    private final AgregationScores agregation = new AgregationScores();
+    private final DiffusionRequetes diffusion;
+    private final CacheClassement cacheClassement;
 
     // ────────────────────────────── Construction ──────────────────────────────
 
@@ -37,11 +50,27 @@ public class ServeurCentralDistribue {
 
     public ServeurCentralDistribue(ServerConfig config) {
         this.config = config;
-        StorageManager storage = new StorageManager(config.getFichierStorage());
-        this.registre = new RegistreServeurs(storage);
+        StorageManager storage = new StorageManager(config.getFichierStorage(),
+            config.getMoteurStorage(), config.getSeuilCompactionJournal(),
+            config.getIntervalleEcritureMs(), config.getSeuilLotEcriture(), config.getPolitiqueFsync());
+        this.registre = new RegistreServeurs(storage,
+            PolitiqueSelection.depuisNom(config.getPolitiqueSelection()), config.getNoeudsVirtuels());
         this.scoreService = new ScoreService(storage);
+        this.cacheClassement = new CacheClassement(scoreService, config.getTaillePageClassement());
         this.themes = new Themes(storage);
         this.log = new ConsoleLogger("MAITRE");
+        this.canauxEsclaves = new PoolCanaux(config.getSecretPartage(),
+            config.getCanauxParEsclave(), config.getSocketTimeoutMs());
+        this.workersCoordination = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "MasterCoordWorker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.diffusion = new DiffusionRequetes(canauxEsclaves, Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "MasterFanout");
+            t.setDaemon(true);
+            return t;
+        }));
     }
 
     // ──────────────────────────── Démarrage ──────────────────────────────────
@@ -81,19 +110,35 @@ public class ServeurCentralDistribue {
                 return;
             }
 
-            if (message.startsWith("REGISTER:")) {
-                traiterRegister(message, out);
-            } else if (message.startsWith("HEARTBEAT:")) {
-                traiterHeartbeat(message, out);
-            } else if (message.startsWith("SCORE:")) {
-                traiterScore(message, out);
+            // Canal persistant ouvert par un esclave
+            if (message.startsWith(CanalMultiplexe.OUVERTURE)) {
+                if (!ProtocolParser.verifierTokenServeur(message, config.getSecretPartage())) {
+                    out.println("ERREUR:Auth"); return;
+                }
+                socket.setSoTimeout(0);
+                CanalMultiplexe.servir(in, out, this::traiterMessageCoordination, workersCoordination);
+                return;
             }
 
+            traiterMessageCoordination(message, out);
+
         } catch (Exception e) {
             log.error("Erreur enregistrement: " + e.getMessage());
         }
     }
 
+    private void traiterMessageCoordination(String message, PrintWriter out) {
+        if (message.startsWith("REGISTER:")) {
+            traiterRegister(message, out);
+        } else if (message.startsWith("HEARTBEAT:")) {
+            traiterHeartbeat(message, out);
+        } else if (message.startsWith("SCORE:")) {
+            traiterScore(message, out);
+        } else {
+            out.println("ERREUR:Commande inconnue");
+        }
+    }
+
     private void traiterRegister(String message, PrintWriter out) {
         String[] parts = message.substring(9).split(";");
         int index = 0;
@@ -121,25 +166,34 @@ public class ServeurCentralDistribue {
         }
 
         registre.enregistrer(new RegistreServeurs.InfoServeur(id, host, port, theme, partDebut, partFin));
-        out.println("OK:REGISTERED");
+        out.println("OK:REGISTERED" + descriptionAnneau());
         registre.afficherEtat();
     }
 
+    /**
+     * HEARTBEAT:[token=x;]id[;SESSIONS=n;QUEUE=n;MATCHS=n;CPU=x;HEAP=x;POIDS=n]
+     */
     private void traiterHeartbeat(String message, PrintWriter out) {
         String payload = message.substring(10);
-        String serveurId = payload;
 
         if (payload.startsWith("token=")) {
             String[] parts = payload.split(";", 2);
             if (!verifierSecret(parts[0].substring(6))) { out.println("ERREUR:Auth"); return; }
-            serveurId = parts.length > 1 ? parts[1] : "";
+            payload = parts.length > 1 ? parts[1] : "";
         } else if (config.getSecretPartage() != null) {
             out.println("ERREUR:Auth"); return;
         }
 
+        int fin = payload.indexOf(';');
+        String serveurId = fin == -1 ? payload : payload.substring(0, fin);
         if (!ProtocolParser.validerId(serveurId)) { out.println("ERREUR:Id invalide"); return; }
-        registre.mettreAJourHeartbeat(serveurId);
-        out.println("OK:ALIVE");
+        registre.mettreAJourHeartbeat(serveurId, ProtocolParser.extraireChamps(payload));
+        out.println("OK:ALIVE" + descriptionAnneau());
+    }
+
+    /** Anneau des scores et adresses des esclaves, joints aux réponses REGISTER / HEARTBEAT. */
+    private String descriptionAnneau() {
+        return ";ANNEAU=" + registre.getAnneau().serialiser() + ";ANNUAIRE=" + registre.getAnnuaire();
     }
 
     private void traiterScore(String message, PrintWriter out) {
@@ -171,80 +225,76 @@ public class ServeurCentralDistribue {
     // ─────────────────────────── Gestion clients ─────────────────────────────
 
     private void ecouterClients() {
-        try (ServerSocket server = new ServerSocket(config.getPortClients())) {
+        // HISTORY et LEADERBOARD interrogent les esclaves : pool séparé, pour
+        // que les REDIRECT ne restent jamais bloqués derrière eux
+        ServeurLignesNio accepteur = new ServeurLignesNio(
+            config.getPortClients(), "MODE?", config.getNbWorkersClients(),
+            config.getNbWorkersDiffusionClients(), config.getFileClients(),
+            ligne -> ligne.startsWith("HISTORY:") || ligne.startsWith("LEADERBOARD"),
+            config.getSocketTimeoutMs(), this::traiterRequeteClient, log);
+        try {
             log.waiting("En attente de clients...");
-            while (true) {
-                Socket socket = server.accept();
-                new Thread(() -> gererClient(socket), "Client").start();
-            }
+            accepteur.demarrer();
         } catch (IOException e) {
             log.error("Erreur serveur clients: " + e.getMessage());
         }
     }
 
-    private void gererClient(Socket socket) {
-        try (socket;
-             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-             PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
-
-            socket.setSoTimeout(config.getSocketTimeoutMs());
-            out.println("MODE?");
-
-            String ligne = in.readLine();
-            if (ligne == null || ligne.isBlank()) {
-                out.println("ERREUR:Requête manquante"); return;
-            }
+    /**
+     * Traite la requête d'un client (ligne reçue après {@code MODE?}).
+     * Exécuté sur un worker de {@link ServeurLignesNio}.
+     */
+    private void traiterRequeteClient(String ligne, PrintWriter out) {
+        if (ligne == null || ligne.isBlank()) {
+            out.println("ERREUR:Requête manquante"); return;
+        }
 
-            if (ligne.startsWith("HISTORY:")) {
-                if (!verifierTokenClient(ProtocolParser.extraireTokenClient(ligne))) {
-                    out.println("ERREUR:Auth"); return;
-                }
-                String username = ProtocolParser.extraireUsernameHistory(ligne);
-                if (!ProtocolParser.validerNom(username)) {
-                    out.println("ERREUR:Utilisateur invalide"); return;
-                }
-                envoyerHistoriqueGlobal(username, out);
-                return;
-            }
-            if (ligne.startsWith("LEADERBOARD")) {
-                if (!verifierTokenClient(ProtocolParser.extraireTokenClient(ligne))) {
-                    out.println("ERREUR:Auth"); return;
-                }
-                envoyerClassement(out);
-                return;
+        if (ligne.startsWith("HISTORY:")) {
+            if (!verifierTokenClient(ProtocolParser.extraireTokenClient(ligne))) {
+                out.println("ERREUR:Auth"); return;
             }
-            if (ligne.startsWith("THEMES")) {
-                if (!verifierTokenClient(ProtocolParser.extraireTokenClient(ligne))) {
-                    out.println("ERREUR:Auth"); return;
-                }
-                envoyerThemes(out);
-                return;
+            String username = ProtocolParser.extraireUsernameHistory(ligne);
+            if (!ProtocolParser.validerNom(username)) {
+                out.println("ERREUR:Utilisateur invalide"); return;
             }
-            if (ligne.startsWith("QUIT")) { out.println("BYE"); return; }
-
-            // Jouer
-            String theme = ProtocolParser.extraireTheme(ligne);
+            envoyerHistoriqueGlobal(username, out);
+            return;
+        }
+        if (ligne.startsWith("LEADERBOARD")) {
             if (!verifierTokenClient(ProtocolParser.extraireTokenClient(ligne))) {
                 out.println("ERREUR:Auth"); return;
             }
-            if (!ProtocolParser.validerTheme(theme)) {
-                out.println("ERREUR:Thème invalide"); return;
-            }
-
-            RegistreServeurs.InfoServeur serveur = registre.selectionnerServeur(theme);
-            if (serveur == null) {
-                out.println("ERREUR:Aucun serveur disponible pour " + theme);
-                log.warn("Aucun serveur pour theme=" + theme);
-                return;
+            envoyerClassement(ProtocolParser.extrairePageClassement(ligne), out);
+            return;
+        }
+        if (ligne.startsWith("THEMES")) {
+            if (!verifierTokenClient(ProtocolParser.extraireTokenClient(ligne))) {
+                out.println("ERREUR:Auth"); return;
             }
+            envoyerThemes(out);
+            return;
+        }
+        if (ligne.startsWith("QUIT")) { out.println("BYE"); return; }
 
-            out.println("REDIRECT:" + serveur.host + ":" + serveur.port);
-            registre.incrementerCharge(serveur.id);
-            log.info("Client redirigé vers " + serveur.id + " (charge=" + serveur.charge + ")");
+        // Jouer
+        String theme = ProtocolParser.extraireTheme(ligne);
+        if (!verifierTokenClient(ProtocolParser.extraireTokenClient(ligne))) {
+            out.println("ERREUR:Auth"); return;
+        }
+        if (!ProtocolParser.validerTheme(theme)) {
+            out.println("ERREUR:Thème invalide"); return;
+        }
 
-        } catch (IOException e) {
-            log.error("Erreur gestion client: " + e.getMessage());
+        RegistreServeurs.InfoServeur serveur = registre.selectionnerServeur(theme);
+        if (serveur == null) {
+            out.println("ERREUR:Aucun serveur disponible pour " + theme);
+            log.warn("Aucun serveur pour theme=" + theme);
+            return;
         }
+
+        out.println("REDIRECT:" + serveur.host + ":" + serveur.port);
+        registre.incrementerCharge(serveur.id);
+        log.info("Client redirigé vers " + serveur.id + " (charge=" + serveur.getCharge() + ")");
     }
 
     // ───────────────────────── Agrégation des scores ─────────────────────────
@@ -260,82 +310,91 @@ public class ServeurCentralDistribue {
         }
     }
 
+    /**
+     * Agrégation incrémentale : chaque esclave ne renvoie que les joueurs
+     * modifiés depuis la dernière version reçue ({@link AgregationScores}).
+     * Les esclaves sont interrogés en parallèle, dans la limite de l'échéance.
+     */
     private void aggregerScores() {
         log.aggregation("Agrégation des scores...");
-        Map<String, Integer> scoresTemporaires = new HashMap<>();
-
-        for (RegistreServeurs.InfoServeur serveur : registre.getTousLesServeurs()) {
-            if (!serveur.actif) continue;
-            try {
-                Socket s = new Socket(serveur.host, serveur.port);
-                s.setSoTimeout(config.getSocketTimeoutMs());
-                PrintWriter out = new PrintWriter(s.getOutputStream(), true);
-                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream()));
-
-                if (config.getSecretPartage() != null) {
-                    out.println("GET_SCORES;token=" + config.getSecretPartage());
-                } else {
-                    out.println("GET_SCORES");
-                }
-
-                String ligne;
-                while ((ligne = in.readLine()) != null && !"END_SCORES".equals(ligne)) {
-                    String[] parts = ligne.split(";");
-                    if (parts.length == 2) {
-                        try {
-                            scoresTemporaires.put(parts[0],
-                                scoresTemporaires.getOrDefault(parts[0], 0) + Integer.parseInt(parts[1]));
-                        } catch (NumberFormatException ignored) {}
-                    }
-                }
-                s.close();
-            } catch (IOException e) {
-                log.error("Agrégation " + serveur.id + ": " + e.getMessage());
+        Map<String, Integer> modifies = new HashMap<>();
+
+        List<DiffusionRequetes.Reponse> reponses = diffusion.interroger(esclavesActifs(),
+            c -> avecSecret(agregation.requete(c.id)), config.getDelaiDiffusionMs());
+        for (DiffusionRequetes.Reponse r : reponses) {
+            if (r.statut == DiffusionRequetes.Statut.OK) {
+                modifies.putAll(agregation.integrer(r.id, r.lignes));
+            } else {
+                log.error("Agrégation " + r.id + ": " + r.erreur);
             }
         }
 
-        scoreService.fusionnerMax(scoresTemporaires);
+        if (!modifies.isEmpty()) {
+            scoreService.fusionnerMax(modifies);
+        }
+        log.aggregation(modifies.size() + " joueur(s) modifié(s)");
         log.printClassement(scoreService.getClassement(10), 10);
     }
 
     // ────────────────────────── Réponses spéciales ───────────────────────────
 
+    /**
+     * Historique d'un joueur sur tous les esclaves, interrogés en parallèle.
+     * Les flux (déjà chronologiques) sont fusionnés par date ; les esclaves
+     * n'ayant pas répondu à temps sont signalés par une ligne HISTORY_PARTIAL.
+     */
     private void envoyerHistoriqueGlobal(String username, PrintWriter out) {
-        out.println("HISTORY_BEGIN");
-        for (RegistreServeurs.InfoServeur serveur : registre.getTousLesServeurs()) {
-            if (!serveur.actif) continue;
-            try {
-                Socket s = new Socket(serveur.host, serveur.port);
-                s.setSoTimeout(config.getSocketTimeoutMs());
-                PrintWriter outS = new PrintWriter(s.getOutputStream(), true);
-                BufferedReader inS = new BufferedReader(new InputStreamReader(s.getInputStream()));
-
-                if (config.getSecretPartage() != null) {
-                    outS.println("GET_HISTORY;USER=" + username + ";token=" + config.getSecretPartage());
-                } else {
-                    outS.println("GET_HISTORY;USER=" + username);
-                }
-
-                String ligne;
-                while ((ligne = inS.readLine()) != null && !"HISTORY_END".equals(ligne)) {
-                    if (!"HISTORY_BEGIN".equals(ligne)) {
-                        out.println(ligne);
-                    }
-                }
-                s.close();
-            } catch (IOException e) {
-                log.error("Historique " + serveur.id + ": " + e.getMessage());
+        List<DiffusionRequetes.Reponse> reponses = diffusion.interroger(esclavesActifs(),
+            c -> avecSecret("GET_HISTORY;USER=" + username), config.getDelaiDiffusionMs());
+
+        List<List<String>> flux = new ArrayList<>();
+        List<String> manquants = new ArrayList<>();
+        for (DiffusionRequetes.Reponse r : reponses) {
+            if (r.statut != DiffusionRequetes.Statut.OK) {
+                log.error("Historique " + r.id + ": " + r.erreur);
+                manquants.add(r.id + "=" + r.statut);
+                continue;
+            }
+            List<String> lignes = new ArrayList<>();
+            for (String ligne : r.lignes) {
+                if ("HISTORY_END".equals(ligne)) break;
+                if (!"HISTORY_BEGIN".equals(ligne)) lignes.add(ligne);
             }
+            flux.add(lignes);
+        }
+
+        out.println("HISTORY_BEGIN");
+        for (String ligne : DiffusionRequetes.fusionnerTriees(flux, PAR_DATE)) {
+            out.println(ligne);
+        }
+        if (!manquants.isEmpty()) {
+            out.println("HISTORY_PARTIAL:" + String.join(",", manquants));
         }
         out.println("HISTORY_END");
     }
 
-    private void envoyerClassement(PrintWriter out) {
-        out.println("LEADERBOARD_BEGIN");
-        for (Map.Entry<String, Integer> entry : scoreService.getClassement()) {
-            out.println(entry.getKey() + ";" + entry.getValue());
+    /** Lignes d'historique "yyyy-MM-dd HH:mm:ss;..." : ordre chronologique par préfixe de date. */
+    private static final Comparator<String> PAR_DATE = Comparator.comparing(
+        l -> l.substring(0, Math.min(19, l.length())));
+
+    private List<DiffusionRequetes.Cible> esclavesActifs() {
+        List<DiffusionRequetes.Cible> cibles = new ArrayList<>();
+        for (RegistreServeurs.InfoServeur serveur : registre.getTousLesServeurs()) {
+            if (serveur.actif) cibles.add(new DiffusionRequetes.Cible(serveur.id, serveur.host, serveur.port));
         }
-        out.println("LEADERBOARD_END");
+        return cibles;
+    }
+
+    private String avecSecret(String requete) {
+        return config.getSecretPartage() != null ? requete + ";token=" + config.getSecretPartage() : requete;
+    }
+
+    /**
+     * Classement complet, ou une page si {@code page} = {offset, limit}.
+     * Servi depuis l'instantané courant, en une seule écriture.
+     */
+    private void envoyerClassement(int[] page, PrintWriter out) {
+        out.print(page == null ? cacheClassement.complet() : cacheClassement.page(page[0], page[1]));
     }
 
     private void envoyerThemes(PrintWriter out) {
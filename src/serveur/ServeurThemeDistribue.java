@@ -2,14 +2,30 @@ package serveur;
 
 import data.*;
 import serveur.model.SlaveConfig;
+import serveur.service.AnneauHachage;
+import serveur.service.CanalMultiplexe;
+import serveur.service.ControleAdmission;
+import serveur.service.EcrivainSessions;
+import serveur.service.ExecutionService;
 import serveur.service.MatchmakingService;
+import serveur.service.PoolCanaux;
 import serveur.service.ProtocolParser;
+import serveur.service.RoutageScores;
 import serveur.service.ScoreService;
 import serveur.view.ConsoleLogger;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
 import java.net.*;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Serveur Esclave (Controller MVC) — Gère un thème, les matchs et une partition de scores.
@@ -18,7 +34,8 @@ import java.util.*;
  * <ul>
  *   <li><b>Model</b>  : {@link SlaveConfig}, {@link Themes}, {@link Question}</li>
  *   <li><b>View</b>   : {@link ConsoleLogger}</li>
- *   <li><b>Service</b> : {@link ScoreService}, {@link MatchmakingService}, {@link ProtocolParser}</li>
+ *   <li><b>Service</b> : {@link ScoreService}, {@link MatchmakingService}, {@link ProtocolParser},
+ *       {@link ExecutionService}</li>
  * </ul>
  */
 public class ServeurThemeDistribue {
@@ -27,21 +44,71 @@ public class ServeurThemeDistribue {
     private final Themes themes;
     private final ScoreService scoreService;
     private final MatchmakingService matchmaking;
+    private final ExecutionService execution;
+    /** Lecture du premier message des connexions acceptées ; borné, refuse au-delà. */
+    private final ExecutorService accueil;
+    /** Canaux du maître et requêtes internes, à l'écart des sessions joueurs. */
+    private final ExecutorService workersCoordination;
+    private final EcrivainSessions ecrivain;
+    /** Bornes des sessions joueurs et des matchs (solo compris) simultanés. */
+    private final ControleAdmission admissionSessions;
+    private final ControleAdmission admissionMatchs;
     private final AuthManager authManager;
+    /** Jetons de session signés ; null sans secret partagé. */
+    private final JetonSession jetons;
     private final MatchHistory matchHistory;
     private final ConsoleLogger log;
+    private final PoolCanaux canalMaitre;
+    private final AtomicInteger sessionsActives = new AtomicInteger();
+    /** Anneau de propriété des scores reçu du maître (null avant l'enregistrement). */
+    private volatile AnneauHachage anneau;
+    /** Adresses des esclaves actifs reçues du maître (id → adresse). */
+    private volatile Map<String, InetSocketAddress> annuaire = Collections.emptyMap();
+    private final RoutageScores routageScores;
 
     // ────────────────────────────── Construction ──────────────────────────────
 
     public ServeurThemeDistribue(SlaveConfig config) {
         this.config = config;
-        StorageManager storage = new StorageManager(config.getFichierStorage());
+        StorageManager storage = new StorageManager(config.getFichierStorage(),
+            config.getMoteurStorage(), config.getSeuilCompactionJournal(),
+            config.getIntervalleEcritureMs(), config.getSeuilLotEcriture(), config.getPolitiqueFsync());
         this.themes = new Themes(storage);
         this.scoreService = new ScoreService(storage, config.getPartitionKey());
-        this.matchmaking = new MatchmakingService(config.getMinJoueursMatch(), config.getMaxJoueursMatch());
-        this.authManager = new AuthManager(storage);
-        this.matchHistory = new MatchHistory(storage);
+        this.execution = new ExecutionService(config.getModeExecution(),
+            config.getMaxThreadsSessions(), config.getMaxThreadsMatchs(), config.getMaxThreadsEcriture());
+        AtomicInteger compteurAccueil = new AtomicInteger();
+        this.accueil = new ThreadPoolExecutor(Math.max(1, config.getThreadsAccueil()),
+            Math.max(1, config.getThreadsAccueil()), 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, config.getFileAccueil())), r -> {
+                Thread t = new Thread(r, config.getId() + "-Accueil-" + compteurAccueil.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        this.workersCoordination = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, config.getId() + "-CoordWorker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.ecrivain = new EcrivainSessions(execution::executerEcriture,
+            config.getCapaciteSortie(), config.getPolitiqueConsommateurLent());
+        this.admissionSessions = new ControleAdmission(config.getMaxSessionsSimultanees(), config.getRoundTimerMs());
+        this.admissionMatchs = new ControleAdmission(config.getMaxMatchsSimultanes(), config.getRoundTimerMs());
+        this.matchHistory = new MatchHistory(storage, config.getRetentionHistorique());
+        this.matchmaking = new MatchmakingService(config.getMinJoueursMatch(), config.getMaxJoueursMatch(),
+            execution::executerMatch, matchHistory::getCote,
+            config.getLargeurTrancheCote(), config.getElargissementTrancheMs(), admissionMatchs);
+        this.authManager = new AuthManager(storage, SchemaHachage.depuisNom(config.getSchemaHachage()),
+            config.getIterationsHachage(), config.getThreadsHachage(), config.getFileHachage());
+        this.jetons = config.getSecretPartage() != null
+            ? new JetonSession(config.getSecretPartage(), config.getDureeSessionMs()) : null;
         this.log = new ConsoleLogger(config.getId());
+        this.canalMaitre = new PoolCanaux(config.getSecretPartage(),
+            config.getCanauxVersMaitre(), config.getSocketTimeoutMs());
+        this.routageScores = new RoutageScores(config.getId(), config.getSecretPartage(),
+            new PoolCanaux(config.getSecretPartage(), 1, config.getSocketTimeoutMs()),
+            this::proprietaireScore, id -> annuaire.get(id),
+            scoreService::ajouterScores, config.getIntervalleRoutageScoresMs(), log);
     }
 
     /** Constructeur legacy pour compatibilité CLI directe. */
@@ -61,20 +128,19 @@ public class ServeurThemeDistribue {
         log.printBannerSlave(config.getId(), config.getTheme(), config.getPort(),
             config.getPartitionDebut(), config.getPartitionFin());
 
+        log.info("Exécution des sessions et matchs: "
+            + (execution.isVirtuel() ? "threads virtuels" : "pools bornés de threads plateforme"));
+
         new Thread(this::ecouterClients, config.getId() + "-Clients").start();
         new Thread(this::envoyerHeartbeats, config.getId() + "-Heartbeat").start();
         new Thread(this::matchmaker, config.getId() + "-Matchmaker").start();
+        routageScores.demarrer();
     }
 
     // ──────────────────────── Enregistrement maître ────────────────────────
 
     private boolean enregistrerAuMaitre() {
         try {
-            Socket socket = new Socket(config.getHostMaitre(), config.getPortMaitre());
-            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            socket.setSoTimeout(config.getSocketTimeoutMs());
-
             String message;
             if (config.getSecretPartage() != null) {
                 message = String.format("REGISTER:token=%s;%s;%s;%d;%s;%d;%d",
@@ -87,11 +153,9 @@ public class ServeurThemeDistribue {
                     config.getTheme(), config.getPartitionDebut(), config.getPartitionFin());
             }
 
-            out.println(message);
-            String reponse = in.readLine();
-            socket.close();
-
-            if ("OK:REGISTERED".equals(reponse)) {
+            String reponse = canalMaitre.requeteUneLigne(config.getHostMaitre(), config.getPortMaitre(), message);
+            if (reponse != null && reponse.startsWith("OK:REGISTERED")) {
+                adopterAnneau(reponse);
                 log.success("Enregistrement au serveur maître réussi");
                 return true;
             }
@@ -106,25 +170,74 @@ public class ServeurThemeDistribue {
     private void envoyerHeartbeats() {
         while (true) {
             try {
-                Thread.sleep(10000);
-                Socket socket = new Socket(config.getHostMaitre(), config.getPortMaitre());
-                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-                socket.setSoTimeout(config.getSocketTimeoutMs());
-
-                if (config.getSecretPartage() != null) {
-                    out.println("HEARTBEAT:token=" + config.getSecretPartage() + ";" + config.getId());
-                } else {
-                    out.println("HEARTBEAT:" + config.getId());
-                }
-                in.readLine();
-                socket.close();
+                Thread.sleep(config.getIntervalleHeartbeatMs());
+                String message = (config.getSecretPartage() != null
+                    ? "HEARTBEAT:token=" + config.getSecretPartage() + ";" + config.getId()
+                    : "HEARTBEAT:" + config.getId()) + metriques();
+                adopterAnneau(canalMaitre.requeteUneLigne(config.getHostMaitre(), config.getPortMaitre(), message));
+            } catch (InterruptedException e) {
+                break;
             } catch (Exception e) {
                 log.error("Heartbeat échoué: " + e.getMessage());
             }
         }
     }
 
+    /**
+     * Adopte l'anneau (champ ANNEAU=) et l'annuaire (champ ANNUAIRE=) transmis
+     * par le maître dans une réponse.
+     */
+    private void adopterAnneau(String reponse) {
+        Map<String, String> champs = ProtocolParser.extraireChamps(reponse);
+        if (champs.containsKey("ANNUAIRE")) {
+            annuaire = decoderAnnuaire(champs.get("ANNUAIRE"));
+        }
+        AnneauHachage recu = AnneauHachage.deserialiser(champs.get("ANNEAU"));
+        if (recu == null || recu.memeTopologie(anneau)) return;
+        anneau = recu;
+        log.info("Anneau des scores v" + recu.getVersion() + " : " + recu.getMembres());
+    }
+
+    /** "S1@host:port,S2@host:port" → id → adresse (entrées invalides ignorées). */
+    private static Map<String, InetSocketAddress> decoderAnnuaire(String valeur) {
+        Map<String, InetSocketAddress> res = new HashMap<>();
+        for (String entree : valeur.split(",")) {
+            int at = entree.indexOf('@');
+            int deuxPoints = entree.lastIndexOf(':');
+            if (at <= 0 || deuxPoints < at) continue;
+            try {
+                res.put(entree.substring(0, at), InetSocketAddress.createUnresolved(
+                    entree.substring(at + 1, deuxPoints), Integer.parseInt(entree.substring(deuxPoints + 1))));
+            } catch (IllegalArgumentException ignored) {}
+        }
+        return res;
+    }
+
+    /**
+     * Métriques de charge remontées au maître avec chaque heartbeat.
+     */
+    private String metriques() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        double moyenne = os.getSystemLoadAverage();
+        double cpu = moyenne < 0 ? 0 : moyenne / os.getAvailableProcessors();
+        Runtime rt = Runtime.getRuntime();
+        double heap = (double) (rt.totalMemory() - rt.freeMemory()) / rt.maxMemory();
+        return String.format(Locale.ROOT,
+            ";SESSIONS=%d;QUEUE=%d;MATCHS=%d;CPU=%.2f;HEAP=%.2f;POIDS=%d;SORTIE_MAX=%d;LENTS=%d;SATURE=%d;ADMISSION=%d",
+            sessionsActives.get(), matchmaking.getNbEnAttente(), matchmaking.getNbMatchsEnCours(),
+            cpu, heap, config.getPoids(), ecrivain.extrairePicProfondeur(),
+            ecrivain.getLignesAbandonnees() + ecrivain.getDeconnexions(),
+            estSature() ? 1 : 0, admissionSessions.getEnAttente() + admissionMatchs.getEnAttente());
+    }
+
+    /**
+     * Saturé : une nouvelle session attendrait son admission, ou des groupes
+     * attendent déjà un créneau de match. Le maître cesse alors d'y rediriger.
+     */
+    private boolean estSature() {
+        return admissionSessions.estSature() || admissionMatchs.getEnAttente() > 0;
+    }
+
     // ─────────────────────────── Gestion clients ─────────────────────────────
 
     private void ecouterClients() {
@@ -132,14 +245,34 @@ public class ServeurThemeDistribue {
             log.waiting("Serveur " + config.getId() + " prêt sur le port " + config.getPort());
             while (true) {
                 Socket client = server.accept();
-                new Thread(() -> gererClient(client), config.getId() + "-ClientHandler").start();
+                try {
+                    accueil.execute(() -> accueillirConnexion(client));
+                } catch (RejectedExecutionException e) {
+                    refuserConnexion(client);
+                }
             }
         } catch (IOException e) {
             log.error("Erreur serveur: " + e.getMessage());
         }
     }
 
-    private void gererClient(Socket client) {
+    /** Pool d'accueil plein : refus immédiat plutôt qu'un thread par connexion. */
+    private void refuserConnexion(Socket client) {
+        try (client) {
+            PrintWriter out = new PrintWriter(client.getOutputStream(), true);
+            out.println("ERREUR:Serveur surchargé");
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Lit le premier message sur le pool d'accueil, borné : une rafale de
+     * connexions joueurs est refusée au lieu de créer un thread chacune. Les
+     * canaux du maître et les requêtes internes sont ensuite servis par les
+     * threads de coordination ; les joueurs passent sur l'exécuteur des
+     * sessions, dont la saturation ne retarde donc jamais la coordination.
+     */
+    private void accueillirConnexion(Socket client) {
         try {
             client.setSoTimeout(config.getSocketTimeoutMs());
             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream()));
@@ -155,47 +288,70 @@ public class ServeurThemeDistribue {
                 client.setSoTimeout(config.getSocketTimeoutMs());
             }
 
-            // GET_SCORES — demande interne du maître
-            if (premierMessage != null && premierMessage.startsWith("GET_SCORES")) {
+            // CANAL — connexion persistante ouverte par le maître
+            if (premierMessage != null && premierMessage.startsWith(CanalMultiplexe.OUVERTURE)) {
                 if (!ProtocolParser.verifierTokenServeur(premierMessage, config.getSecretPartage())) {
                     out.println("ERREUR:Auth");
                     client.close();
                     return;
                 }
-                envoyerScores(out);
-                client.close();
+                client.setSoTimeout(0);
+                workersCoordination.execute(() -> servirCanal(client, in, out));
                 return;
             }
 
-            // GET_HISTORY — demande interne du maître
-            if (premierMessage != null && premierMessage.startsWith("GET_HISTORY")) {
-                if (!ProtocolParser.verifierTokenServeur(premierMessage, config.getSecretPartage())) {
-                    out.println("ERREUR:Auth");
-                    client.close();
-                    return;
-                }
-                String user = ProtocolParser.extraireUserHistory(premierMessage);
-                out.println("HISTORY_BEGIN");
-                if (user != null && !user.isBlank()) {
-                    for (String l : matchHistory.getHistoriquePourUser(user.trim(), 200)) {
-                        out.println(l);
+            // GET_SCORES / GET_HISTORY / PUT_SCORES — demande interne ponctuelle
+            if (premierMessage != null
+                    && (premierMessage.startsWith("GET_SCORES") || premierMessage.startsWith("GET_HISTORY")
+                        || premierMessage.startsWith(RoutageScores.COMMANDE))) {
+                String requete = premierMessage;
+                workersCoordination.execute(() -> {
+                    try (client) {
+                        traiterRequeteInterne(requete, out);
+                    } catch (IOException ignored) {
                     }
-                }
-                out.println("HISTORY_END");
-                client.close();
+                });
                 return;
             }
 
-            // Authentification client joueur
+            String authMsg = premierMessage;
+            execution.executerSession(() -> gererClient(client, in, out, authMsg));
+
+        } catch (Exception e) {
+            log.error("Erreur client: " + e.getMessage());
+            try { client.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    private void servirCanal(Socket client, BufferedReader in, PrintWriter out) {
+        try (client) {
+            CanalMultiplexe.servir(in, out, this::traiterRequeteInterne, workersCoordination);
+        } catch (IOException e) {
+            log.error("Erreur canal: " + e.getMessage());
+        }
+    }
+
+    /** Session joueur : authentification, admission, puis partie solo ou multi. */
+    private void gererClient(Socket client, BufferedReader in, PrintWriter out, String premierMessage) {
+        boolean sessionJoueur = false;
+        long debutSession = 0;
+        try {
+            // Authentification client joueur : jeton de session, sinon mot de passe
             out.println("AUTH?");
             String authMsg = premierMessage != null ? premierMessage : in.readLine();
-            AuthManager.Result auth = authManager.authentifier(authMsg);
+            AuthManager.Result auth = authentifierJoueur(authMsg, in, out);
             if (!auth.ok) {
                 out.println("ERREUR:AUTH:" + auth.message);
                 client.close();
                 return;
             }
-            out.println("OK:AUTH");
+            out.println(jetons != null ? "OK:AUTH;SESSION=" + jetons.emettre(auth.username) : "OK:AUTH");
+
+            // Admission : au-delà du maximum de sessions, attente annoncée (EN_ATTENTE:ETA=s)
+            admissionSessions.entrer(eta -> out.println(ControleAdmission.messageAttente(eta)));
+            debutSession = System.currentTimeMillis();
+            sessionsActives.incrementAndGet();
+            sessionJoueur = true;
 
             // Choix du mode : SOLO ou MULTI
             client.setSoTimeout(0);
@@ -204,66 +360,144 @@ public class ServeurThemeDistribue {
             String mode = ProtocolParser.extraireMode(modeMsg);
 
             if ("SOLO".equals(mode)) {
-                // Lancer une partie solo immédiatement
+                // Partie solo jouée directement sur le thread de la session
                 List<Question> questions = themes.getQuestions(config.getTheme());
                 PlayerSession session = new PlayerSession(
-                    auth.username, null, client, in, out);
-                out.println("SOLO_PRET");
-                MatchSolo matchSolo = new MatchSolo(
-                    config.getTheme(), questions, session,
-                    config.getSoloNbQuestions(),
-                    this::enregistrerScoreFinal, matchHistory);
-                new Thread(matchSolo::jouer, "Solo-" + auth.username).start();
-                session.attendreFinMatch();
+                    auth.username, null, client, in, out, ecrivain);
+                admissionMatchs.entrer(eta -> out.println(ControleAdmission.messageAttente(eta)));
+                long debutMatch = System.currentTimeMillis();
+                try {
+                    out.println("SOLO_PRET");
+                    MatchSolo matchSolo = new MatchSolo(
+                        config.getTheme(), questions, session,
+                        config.getSoloNbQuestions(),
+                        this::enregistrerScoreFinal, matchHistory);
+                    matchSolo.jouer();
+                } finally {
+                    admissionMatchs.sortir(System.currentTimeMillis() - debutMatch);
+                }
             } else {
                 // Mode multi-joueurs : salle privée + file d'attente
                 out.println("ROOM?");
                 String roomCode = ProtocolParser.extraireRoomCode(in.readLine());
                 PlayerSession session = new PlayerSession(
-                    auth.username, roomCode, client, in, out);
+                    auth.username, roomCode, client, in, out, ecrivain);
                 out.println("EN_ATTENTE");
+                if (admissionMatchs.estSature()) {
+                    out.println(ControleAdmission.messageAttente(
+                        admissionMatchs.estimerAttenteMs(admissionMatchs.getEnAttente() + 1)));
+                }
                 matchmaking.ajouterJoueur(session);
-                session.attendreFinMatch();
+                session.lireJusquaFinMatch();
+                matchmaking.retirerJoueur(session); // déconnecté avant le début du match
             }
 
         } catch (Exception e) {
             log.error("Erreur client: " + e.getMessage());
+        } finally {
+            if (sessionJoueur) {
+                sessionsActives.decrementAndGet();
+                admissionSessions.sortir(System.currentTimeMillis() - debutSession);
+            }
         }
     }
 
-    // ──────────────────────────── Scores ────────────────────────────────────
-
-    private void envoyerScoreAuMaitre(String nom, int score) {
-        try {
-            Socket socket = new Socket(config.getHostMaitre(), config.getPortMaitre());
-            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
-            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            socket.setSoTimeout(config.getSocketTimeoutMs());
+    /**
+     * SESSION:jeton est vérifié par HMAC seul, sans accès au stockage ; un
+     * jeton invalide ou expiré renvoie AUTH? pour un login par mot de passe.
+     */
+    private AuthManager.Result authentifierJoueur(String authMsg, BufferedReader in, PrintWriter out)
+            throws IOException {
+        if (authMsg != null && authMsg.startsWith(JetonSession.PREFIXE)) {
+            String user = jetons != null ? jetons.verifier(authMsg) : null;
+            if (user != null) return new AuthManager.Result(true, user, "OK");
+            out.println("AUTH?");
+            authMsg = in.readLine();
+        }
+        return authManager.authentifier(authMsg);
+    }
 
-            if (config.getSecretPartage() != null) {
-                out.println("SCORE:token=" + config.getSecretPartage() + ";" + nom + ";" + score + ";" + config.getId());
-            } else {
-                out.println("SCORE:" + nom + ";" + score + ";" + config.getId());
+    /**
+     * Requêtes internes, ponctuelles ou via canal : GET_SCORES,
+     * GET_SCORES_SINCE, GET_HISTORY (maître) et PUT_SCORES (scores routés par les autres esclaves).
+     */
+    private void traiterRequeteInterne(String message, PrintWriter out) {
+        if (!ProtocolParser.verifierTokenServeur(message, config.getSecretPartage())) {
+            out.println("ERREUR:Auth");
+            return;
+        }
+        if (message.startsWith("GET_SCORES_SINCE")) {
+            long[] depuis = ProtocolParser.extraireVersionScores(message);
+            envoyerScoresDepuis(depuis[0], depuis[1], out);
+        } else if (message.startsWith("GET_SCORES")) {
+            envoyerScores(out);
+        } else if (message.startsWith("GET_HISTORY")) {
+            String user = ProtocolParser.extraireUserHistory(message);
+            out.println("HISTORY_BEGIN");
+            if (user != null && !user.isBlank()) {
+                for (String l : matchHistory.getHistoriquePourUser(user.trim(), config.getRetentionHistorique())) {
+                    out.println(l);
+                }
             }
-            in.readLine();
-            socket.close();
-        } catch (IOException e) {
-            log.error("Erreur envoi score: " + e.getMessage());
+            out.println("HISTORY_END");
+        } else if (message.startsWith(RoutageScores.COMMANDE)) {
+            // Enregistré même si l'anneau a changé entre-temps : l'agrégation
+            // du maître somme les scores de tous les esclaves.
+            Map<String, Integer> recus = routageScores.recevoir(message);
+            if (recus == null) {
+                out.println("OK:SCORES_SAVED;n=0"); // lot déjà enregistré, renvoyé après un délai dépassé
+                return;
+            }
+            scoreService.ajouterScores(recus);
+            out.println("OK:SCORES_SAVED;n=" + recus.size());
+        } else {
+            out.println("ERREUR:Commande inconnue");
         }
     }
 
+    // ──────────────────────────── Scores ────────────────────────────────────
+
+    /**
+     * SCORES_VERSION:epoque:version:FULL|DELTA, puis les joueurs modifiés depuis
+     * la version connue du maître, puis END_SCORES.
+     */
+    private void envoyerScoresDepuis(long epoque, long version, PrintWriter out) {
+        ScoreService.Delta delta = scoreService.getScoresDepuis(epoque, version);
+        out.println("SCORES_VERSION:" + delta.epoque + ":" + delta.version + ":"
+            + (delta.complet ? "FULL" : "DELTA"));
+        delta.scores.forEach((nom, score) -> out.println(nom + ";" + score));
+        out.println("END_SCORES");
+    }
+
     private void envoyerScores(PrintWriter out) {
         Map<String, Integer> scores = scoreService.getTousLesScores();
         scores.forEach((nom, score) -> out.println(nom + ";" + score));
         out.println("END_SCORES");
     }
 
-    private void enregistrerScoreFinal(String nom, int scoreFinal) {
+    /**
+     * Propriétaire des scores d'un joueur, donné par l'anneau du maître ; avant
+     * de l'avoir reçu, la plage statique de la configuration identifie les
+     * joueurs locaux (null pour les autres, qui attendent l'anneau).
+     */
+    private String proprietaireScore(String nom) {
+        AnneauHachage a = anneau;
+        if (a != null && !a.estVide()) {
+            return a.proprietaire(nom);
+        }
         int hash = Math.abs(nom.hashCode() % config.getPartitionMax());
-        if (hash >= config.getPartitionDebut() && hash <= config.getPartitionFin()) {
+        return hash >= config.getPartitionDebut() && hash <= config.getPartitionFin() ? config.getId() : null;
+    }
+
+    /**
+     * Joueur local : enregistré directement. Sinon routé de façon asynchrone
+     * vers l'esclave propriétaire (par lots, avec reprise si celui-ci est absent).
+     */
+    private void enregistrerScoreFinal(String nom, int scoreFinal) {
+        if (config.getId().equals(proprietaireScore(nom))) {
             scoreService.ajouterScore(nom, scoreFinal);
         } else {
-            envoyerScoreAuMaitre(nom, scoreFinal);
+            routageScores.router(nom, scoreFinal);
         }
     }
 
@@ -272,15 +506,16 @@ public class ServeurThemeDistribue {
     private void matchmaker() {
         while (true) {
             try {
-                Thread.sleep(1000);
-                List<PlayerSession> group = matchmaking.prendreGroupePourMatch();
-                if (group == null) continue;
+                // Réveillé dès qu'une salle devient jouable
+                List<List<PlayerSession>> groupes = matchmaking.prendreGroupesPourMatch(1000);
+                if (groupes.isEmpty()) continue;
 
                 List<Question> questions = themes.getQuestions(config.getTheme());
-
-                matchmaking.lancerMatch(group, config.getTheme(), questions,
-                    config.getNbQuestionsMatch(), 1, config.getRoundTimerMs(),
-                    this::enregistrerScoreFinal, matchHistory);
+                for (List<PlayerSession> group : groupes) {
+                    matchmaking.lancerMatch(group, config.getTheme(), questions,
+                        config.getNbQuestionsMatch(), 1, config.getRoundTimerMs(),
+                        this::enregistrerScoreFinal, matchHistory);
+                }
 
             } catch (InterruptedException e) {
                 break;
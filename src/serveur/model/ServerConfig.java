@@ -15,12 +15,27 @@ public class ServerConfig {
     private final long aggregationIntervalMs;
     private final long heartbeatCheckIntervalMs;
 
+    // --- Concurrence ---
+    private final int nbWorkersClients;
+    private final int nbWorkersDiffusionClients;
+    private final int fileClients;
+    private final int canauxParEsclave;
+    private final String politiqueSelection;
+    private final int noeudsVirtuels;
+    private final long delaiDiffusionMs;
+    private final int taillePageClassement;
+
     // --- Sécurité ---
     private final String secretPartage;
     private final String tokenClient;
 
     // --- Fichiers ---
     private final String fichierStorage;
+    private final String moteurStorage;
+    private final int seuilCompactionJournal;
+    private final long intervalleEcritureMs;
+    private final int seuilLotEcriture;
+    private final String politiqueFsync;
 
     private ServerConfig(Builder b) {
         this.portClients = b.portClients;
@@ -29,9 +44,22 @@ public class ServerConfig {
         this.heartbeatTimeoutMs = b.heartbeatTimeoutMs;
         this.aggregationIntervalMs = b.aggregationIntervalMs;
         this.heartbeatCheckIntervalMs = b.heartbeatCheckIntervalMs;
+        this.nbWorkersClients = b.nbWorkersClients;
+        this.nbWorkersDiffusionClients = b.nbWorkersDiffusionClients;
+        this.fileClients = b.fileClients;
+        this.canauxParEsclave = b.canauxParEsclave;
+        this.politiqueSelection = b.politiqueSelection;
+        this.noeudsVirtuels = b.noeudsVirtuels;
+        this.delaiDiffusionMs = b.delaiDiffusionMs;
+        this.taillePageClassement = b.taillePageClassement;
         this.secretPartage = b.secretPartage;
         this.tokenClient = b.tokenClient;
         this.fichierStorage = b.fichierStorage;
+        this.moteurStorage = b.moteurStorage;
+        this.seuilCompactionJournal = b.seuilCompactionJournal;
+        this.intervalleEcritureMs = b.intervalleEcritureMs;
+        this.seuilLotEcriture = b.seuilLotEcriture;
+        this.politiqueFsync = b.politiqueFsync;
     }
 
     // --- Getters ---
@@ -41,9 +69,22 @@ public class ServerConfig {
     public long getHeartbeatTimeoutMs()      { return heartbeatTimeoutMs; }
     public long getAggregationIntervalMs()   { return aggregationIntervalMs; }
     public long getHeartbeatCheckIntervalMs() { return heartbeatCheckIntervalMs; }
+    public int getNbWorkersClients()         { return nbWorkersClients; }
+    public int getNbWorkersDiffusionClients() { return nbWorkersDiffusionClients; }
+    public int getFileClients()              { return fileClients; }
+    public int getCanauxParEsclave()         { return canauxParEsclave; }
+    public String getPolitiqueSelection()    { return politiqueSelection; }
+    public int getNoeudsVirtuels()           { return noeudsVirtuels; }
+    public long getDelaiDiffusionMs()        { return delaiDiffusionMs; }
+    public int getTaillePageClassement()     { return taillePageClassement; }
     public String getSecretPartage()         { return secretPartage; }
     public String getTokenClient()           { return tokenClient; }
     public String getFichierStorage()       { return fichierStorage; }
+    public String getMoteurStorage()        { return moteurStorage; }
+    public int getSeuilCompactionJournal()  { return seuilCompactionJournal; }
+    public long getIntervalleEcritureMs()   { return intervalleEcritureMs; }
+    public int getSeuilLotEcriture()        { return seuilLotEcriture; }
+    public String getPolitiqueFsync()       { return politiqueFsync; }
 
     /**
      * Charge la configuration depuis les variables d'environnement + valeurs par défaut.
@@ -56,9 +97,22 @@ public class ServerConfig {
             .heartbeatTimeoutMs(envLong("QUIZ_HEARTBEAT_TIMEOUT_MS", 30000))
             .aggregationIntervalMs(envLong("QUIZ_AGGREGATION_INTERVAL_MS", 30000))
             .heartbeatCheckIntervalMs(envLong("QUIZ_HEARTBEAT_CHECK_MS", 5000))
+            .nbWorkersClients(envInt("QUIZ_CLIENT_WORKERS", Runtime.getRuntime().availableProcessors()))
+            .nbWorkersDiffusionClients(envInt("QUIZ_CLIENT_FANOUT_WORKERS", 16))
+            .fileClients(envInt("QUIZ_CLIENT_QUEUE", 256))
+            .canauxParEsclave(envInt("QUIZ_CHANNELS_PER_PEER", 2))
+            .politiqueSelection(envStr("QUIZ_ROUTING_POLICY", "LEAST_CONNECTIONS"))
+            .noeudsVirtuels(envInt("QUIZ_RING_VNODES", 64))
+            .delaiDiffusionMs(envLong("QUIZ_FANOUT_DEADLINE_MS", 5000))
+            .taillePageClassement(envInt("QUIZ_LEADERBOARD_PAGE", 50))
             .secretPartage(envStr("QUIZ_SHARED_SECRET"))
             .tokenClient(envStr("QUIZ_CLIENT_TOKEN"))
             .fichierStorage(envStr("QUIZ_STORAGE_FILE", "data/storage.json"))
+            .moteurStorage(envStr("QUIZ_STORAGE_ENGINE", "JOURNAL"))
+            .seuilCompactionJournal(envInt("QUIZ_JOURNAL_COMPACT_EVERY", 500))
+            .intervalleEcritureMs(envLong("QUIZ_STORAGE_FLUSH_MS", 250))
+            .seuilLotEcriture(envInt("QUIZ_STORAGE_BATCH", 256))
+            .politiqueFsync(envStr("QUIZ_STORAGE_FSYNC", "NONE"))
             .build();
     }
 
@@ -70,9 +124,22 @@ public class ServerConfig {
         private long heartbeatTimeoutMs = 30000;
         private long aggregationIntervalMs = 30000;
         private long heartbeatCheckIntervalMs = 5000;
+        private int nbWorkersClients = Runtime.getRuntime().availableProcessors();
+        private int nbWorkersDiffusionClients = 16;
+        private int fileClients = 256;
+        private int canauxParEsclave = 2;
+        private String politiqueSelection = "LEAST_CONNECTIONS";
+        private int noeudsVirtuels = 64;
+        private long delaiDiffusionMs = 5000;
+        private int taillePageClassement = 50;
         private String secretPartage;
         private String tokenClient;
         private String fichierStorage = "data/storage.json";
+        private String moteurStorage = "JOURNAL";
+        private int seuilCompactionJournal = 500;
+        private long intervalleEcritureMs = 250;
+        private int seuilLotEcriture = 256;
+        private String politiqueFsync = "NONE";
 
         public Builder portClients(int v)              { this.portClients = v; return this; }
         public Builder portCoordination(int v)         { this.portCoordination = v; return this; }
@@ -80,9 +147,22 @@ public class ServerConfig {
         public Builder heartbeatTimeoutMs(long v)      { this.heartbeatTimeoutMs = v; return this; }
         public Builder aggregationIntervalMs(long v)   { this.aggregationIntervalMs = v; return this; }
         public Builder heartbeatCheckIntervalMs(long v) { this.heartbeatCheckIntervalMs = v; return this; }
+        public Builder nbWorkersClients(int v)         { this.nbWorkersClients = v; return this; }
+        public Builder nbWorkersDiffusionClients(int v) { this.nbWorkersDiffusionClients = v; return this; }
+        public Builder fileClients(int v)              { this.fileClients = v; return this; }
+        public Builder canauxParEsclave(int v)         { this.canauxParEsclave = v; return this; }
+        public Builder politiqueSelection(String v)    { this.politiqueSelection = v; return this; }
+        public Builder noeudsVirtuels(int v)           { this.noeudsVirtuels = v; return this; }
+        public Builder delaiDiffusionMs(long v)        { this.delaiDiffusionMs = v; return this; }
+        public Builder taillePageClassement(int v)     { this.taillePageClassement = v; return this; }
         public Builder secretPartage(String v)         { this.secretPartage = v; return this; }
         public Builder tokenClient(String v)           { this.tokenClient = v; return this; }
         public Builder fichierStorage(String v)       { this.fichierStorage = v; return this; }
+        public Builder moteurStorage(String v)        { this.moteurStorage = v; return this; }
+        public Builder seuilCompactionJournal(int v)  { this.seuilCompactionJournal = v; return this; }
+        public Builder intervalleEcritureMs(long v)   { this.intervalleEcritureMs = v; return this; }
+        public Builder seuilLotEcriture(int v)        { this.seuilLotEcriture = v; return this; }
+        public Builder politiqueFsync(String v)       { this.politiqueFsync = v; return this; }
 
         public ServerConfig build() { return new ServerConfig(this); }
     }
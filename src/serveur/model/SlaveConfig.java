@@ -15,20 +15,50 @@ public class SlaveConfig {
     private final int portMaitre;
     private final String hostPublic;
     private final int socketTimeoutMs;
+    private final int canauxVersMaitre;
+    private final long intervalleHeartbeatMs;
+    private final int poids;
+    private final long intervalleRoutageScoresMs;
 
     // --- Match ---
     private final int minJoueursMatch;
     private final int maxJoueursMatch;
+    private final int largeurTrancheCote;
+    private final long elargissementTrancheMs;
     private final int nbQuestionsMatch;
     private final int soloNbQuestions;
     private final int roundTimerMs;
     private final int partitionMax;
+    private final int retentionHistorique;
+
+    // --- Exécution ---
+    private final String modeExecution;
+    private final int maxThreadsSessions;
+    private final int maxThreadsMatchs;
+    private final int maxThreadsEcriture;
+    /** Lecture du premier message des connexions acceptées (pool borné). */
+    private final int threadsAccueil;
+    private final int fileAccueil;
+    private final int maxSessionsSimultanees;
+    private final int maxMatchsSimultanes;
+    private final int capaciteSortie;
+    private final String politiqueConsommateurLent;
 
     // --- Sécurité ---
     private final String secretPartage;
+    private final long dureeSessionMs;
+    private final String schemaHachage;
+    private final int iterationsHachage;
+    private final int threadsHachage;
+    private final int fileHachage;
 
     // --- Fichiers ---
     private final String fichierStorage;
+    private final String moteurStorage;
+    private final int seuilCompactionJournal;
+    private final long intervalleEcritureMs;
+    private final int seuilLotEcriture;
+    private final String politiqueFsync;
     private final String partitionKey;
 
     private SlaveConfig(Builder b) {
@@ -41,14 +71,41 @@ public class SlaveConfig {
         this.portMaitre = b.portMaitre;
         this.hostPublic = b.hostPublic;
         this.socketTimeoutMs = b.socketTimeoutMs;
+        this.canauxVersMaitre = b.canauxVersMaitre;
+        this.intervalleHeartbeatMs = b.intervalleHeartbeatMs;
+        this.poids = b.poids;
+        this.intervalleRoutageScoresMs = b.intervalleRoutageScoresMs;
         this.minJoueursMatch = b.minJoueursMatch;
         this.maxJoueursMatch = b.maxJoueursMatch;
+        this.largeurTrancheCote = b.largeurTrancheCote;
+        this.elargissementTrancheMs = b.elargissementTrancheMs;
         this.nbQuestionsMatch = b.nbQuestionsMatch;
         this.soloNbQuestions = b.soloNbQuestions;
         this.roundTimerMs = b.roundTimerMs;
         this.partitionMax = b.partitionMax;
+        this.retentionHistorique = b.retentionHistorique;
+        this.modeExecution = b.modeExecution;
+        this.maxThreadsSessions = b.maxThreadsSessions;
+        this.maxThreadsMatchs = b.maxThreadsMatchs;
+        this.maxThreadsEcriture = b.maxThreadsEcriture;
+        this.threadsAccueil = b.threadsAccueil;
+        this.fileAccueil = b.fileAccueil;
+        this.maxSessionsSimultanees = b.maxSessionsSimultanees;
+        this.maxMatchsSimultanes = b.maxMatchsSimultanes;
+        this.capaciteSortie = b.capaciteSortie;
+        this.politiqueConsommateurLent = b.politiqueConsommateurLent;
         this.secretPartage = b.secretPartage;
+        this.dureeSessionMs = b.dureeSessionMs;
+        this.schemaHachage = b.schemaHachage;
+        this.iterationsHachage = b.iterationsHachage;
+        this.threadsHachage = b.threadsHachage;
+        this.fileHachage = b.fileHachage;
         this.fichierStorage = b.fichierStorage;
+        this.moteurStorage = b.moteurStorage;
+        this.seuilCompactionJournal = b.seuilCompactionJournal;
+        this.intervalleEcritureMs = b.intervalleEcritureMs;
+        this.seuilLotEcriture = b.seuilLotEcriture;
+        this.politiqueFsync = b.politiqueFsync;
         this.partitionKey = "partition_" + b.partitionDebut + "-" + b.partitionFin;
     }
 
@@ -62,14 +119,41 @@ public class SlaveConfig {
     public int getPortMaitre()           { return portMaitre; }
     public String getHostPublic()        { return hostPublic; }
     public int getSocketTimeoutMs()      { return socketTimeoutMs; }
+    public int getCanauxVersMaitre()     { return canauxVersMaitre; }
+    public long getIntervalleHeartbeatMs() { return intervalleHeartbeatMs; }
+    public int getPoids()                { return poids; }
+    public long getIntervalleRoutageScoresMs() { return intervalleRoutageScoresMs; }
     public int getMinJoueursMatch()      { return minJoueursMatch; }
     public int getMaxJoueursMatch()      { return maxJoueursMatch; }
+    public int getLargeurTrancheCote()   { return largeurTrancheCote; }
+    public long getElargissementTrancheMs() { return elargissementTrancheMs; }
     public int getNbQuestionsMatch()     { return nbQuestionsMatch; }
     public int getSoloNbQuestions()      { return soloNbQuestions; }
     public int getRoundTimerMs()         { return roundTimerMs; }
     public int getPartitionMax()         { return partitionMax; }
+    public int getRetentionHistorique()  { return retentionHistorique; }
+    public String getModeExecution()     { return modeExecution; }
+    public int getMaxThreadsSessions()   { return maxThreadsSessions; }
+    public int getMaxThreadsMatchs()     { return maxThreadsMatchs; }
+    public int getMaxThreadsEcriture()   { return maxThreadsEcriture; }
+    public int getThreadsAccueil()       { return threadsAccueil; }
+    public int getFileAccueil()          { return fileAccueil; }
+    public int getMaxSessionsSimultanees() { return maxSessionsSimultanees; }
+    public int getMaxMatchsSimultanes()  { return maxMatchsSimultanes; }
+    public int getCapaciteSortie()       { return capaciteSortie; }
+    public String getPolitiqueConsommateurLent() { return politiqueConsommateurLent; }
     public String getSecretPartage()     { return secretPartage; }
+    public long getDureeSessionMs()      { return dureeSessionMs; }
+    public String getSchemaHachage()     { return schemaHachage; }
+    public int getIterationsHachage()    { return iterationsHachage; }
+    public int getThreadsHachage()       { return threadsHachage; }
+    public int getFileHachage()          { return fileHachage; }
     public String getFichierStorage()       { return fichierStorage; }
+    public String getMoteurStorage()        { return moteurStorage; }
+    public int getSeuilCompactionJournal()  { return seuilCompactionJournal; }
+    public long getIntervalleEcritureMs()   { return intervalleEcritureMs; }
+    public int getSeuilLotEcriture()        { return seuilLotEcriture; }
+    public String getPolitiqueFsync()       { return politiqueFsync; }
     public String getPartitionKey()          { return partitionKey; }
 
     /**
@@ -92,14 +176,41 @@ public class SlaveConfig {
             .portMaitre(envInt("QUIZ_PORT_COORDINATION", 6001))
             .hostPublic(envStr("QUIZ_SERVER_HOST", "localhost"))
             .socketTimeoutMs(envInt("QUIZ_SOCKET_TIMEOUT_MS", 15000))
+            .canauxVersMaitre(envInt("QUIZ_CHANNELS_PER_PEER", 2))
+            .intervalleHeartbeatMs(envInt("QUIZ_HEARTBEAT_INTERVAL_MS", 10000))
+            .poids(envInt("QUIZ_SLAVE_WEIGHT", 1))
+            .intervalleRoutageScoresMs(envInt("QUIZ_SCORE_ROUTE_MS", 200))
             .minJoueursMatch(envInt("QUIZ_MIN_PLAYERS", 2))
             .maxJoueursMatch(envInt("QUIZ_MAX_PLAYERS", 4))
+            .largeurTrancheCote(envInt("QUIZ_RATING_BAND", 100))
+            .elargissementTrancheMs(envInt("QUIZ_RATING_WIDEN_MS", 5000))
             .nbQuestionsMatch(envInt("QUIZ_NB_QUESTIONS", 5))
             .soloNbQuestions(envInt("QUIZ_SOLO_NB_QUESTIONS", 10))
             .roundTimerMs(envInt("QUIZ_ROUND_TIMER_MS", 45000))
             .partitionMax(envInt("QUIZ_PARTITION_MAX", 100))
+            .retentionHistorique(envInt("QUIZ_HISTORY_PER_USER", 200))
+            .modeExecution(envStr("QUIZ_EXEC_MODE", "VIRTUAL"))
+            .maxThreadsSessions(envInt("QUIZ_MAX_SESSION_THREADS", 512))
+            .maxThreadsMatchs(envInt("QUIZ_MAX_MATCH_THREADS", 128))
+            .maxThreadsEcriture(envInt("QUIZ_MAX_WRITER_THREADS", 0))
+            .threadsAccueil(envInt("QUIZ_ACCEPT_THREADS", 16))
+            .fileAccueil(envInt("QUIZ_ACCEPT_QUEUE", 256))
+            .maxSessionsSimultanees(envInt("QUIZ_MAX_SESSIONS", 512))
+            .maxMatchsSimultanes(envInt("QUIZ_MAX_CONCURRENT_MATCHES", 128))
+            .capaciteSortie(envInt("QUIZ_OUTBOUND_QUEUE", 256))
+            .politiqueConsommateurLent(envStr("QUIZ_SLOW_CONSUMER", "DISCONNECT"))
             .secretPartage(envStr("QUIZ_SHARED_SECRET"))
+            .dureeSessionMs(envInt("QUIZ_SESSION_TTL_MS", 3_600_000))
+            .schemaHachage(envStr("QUIZ_PASSWORD_HASH", "PBKDF2"))
+            .iterationsHachage(envInt("QUIZ_PBKDF2_ITERATIONS", 120_000))
+            .threadsHachage(envInt("QUIZ_AUTH_THREADS", 0))
+            .fileHachage(envInt("QUIZ_AUTH_QUEUE", 64))
             .fichierStorage(envStr("QUIZ_STORAGE_FILE", "data/storage.json"))
+            .moteurStorage(envStr("QUIZ_STORAGE_ENGINE", "JOURNAL"))
+            .seuilCompactionJournal(envInt("QUIZ_JOURNAL_COMPACT_EVERY", 500))
+            .intervalleEcritureMs(envInt("QUIZ_STORAGE_FLUSH_MS", 250))
+            .seuilLotEcriture(envInt("QUIZ_STORAGE_BATCH", 256))
+            .politiqueFsync(envStr("QUIZ_STORAGE_FSYNC", "NONE"))
             .build();
     }
 
@@ -113,14 +224,41 @@ public class SlaveConfig {
         private int portMaitre = 6001;
         private String hostPublic = "localhost";
         private int socketTimeoutMs = 15000;
+        private int canauxVersMaitre = 2;
+        private long intervalleHeartbeatMs = 10000;
+        private int poids = 1;
+        private long intervalleRoutageScoresMs = 200;
         private int minJoueursMatch = 2;
         private int maxJoueursMatch = 4;
+        private int largeurTrancheCote = 100;
+        private long elargissementTrancheMs = 5000;
         private int nbQuestionsMatch = 5;
         private int soloNbQuestions = 10;
         private int roundTimerMs = 45000;
         private int partitionMax = 100;
+        private int retentionHistorique = 200;
+        private String modeExecution = "VIRTUAL";
+        private int maxThreadsSessions = 512;
+        private int maxThreadsMatchs = 128;
+        private int maxThreadsEcriture = 0;
+        private int threadsAccueil = 16;
+        private int fileAccueil = 256;
+        private int maxSessionsSimultanees = 512;
+        private int maxMatchsSimultanes = 128;
+        private int capaciteSortie = 256;
+        private String politiqueConsommateurLent = "DISCONNECT";
         private String secretPartage;
+        private long dureeSessionMs = 3_600_000;
+        private String schemaHachage = "PBKDF2";
+        private int iterationsHachage = 120_000;
+        private int threadsHachage = 0;
+        private int fileHachage = 64;
         private String fichierStorage = "data/storage.json";
+        private String moteurStorage = "JOURNAL";
+        private int seuilCompactionJournal = 500;
+        private long intervalleEcritureMs = 250;
+        private int seuilLotEcriture = 256;
+        private String politiqueFsync = "NONE";
 
         public Builder(String id, String theme, int port, int partDebut, int partFin) {
             this.id = id;
@@ -135,14 +273,41 @@ public class SlaveConfig {
         public Builder portMaitre(int v)           { this.portMaitre = v; return this; }
         public Builder hostPublic(String v)        { this.hostPublic = v; return this; }
         public Builder socketTimeoutMs(int v)      { this.socketTimeoutMs = v; return this; }
+        public Builder canauxVersMaitre(int v)     { this.canauxVersMaitre = v; return this; }
+        public Builder intervalleHeartbeatMs(long v) { this.intervalleHeartbeatMs = v; return this; }
+        public Builder poids(int v)                { this.poids = v; return this; }
+        public Builder intervalleRoutageScoresMs(long v) { this.intervalleRoutageScoresMs = v; return this; }
         public Builder minJoueursMatch(int v)      { this.minJoueursMatch = v; return this; }
         public Builder maxJoueursMatch(int v)      { this.maxJoueursMatch = v; return this; }
+        public Builder largeurTrancheCote(int v)   { this.largeurTrancheCote = v; return this; }
+        public Builder elargissementTrancheMs(long v) { this.elargissementTrancheMs = v; return this; }
         public Builder nbQuestionsMatch(int v)     { this.nbQuestionsMatch = v; return this; }
         public Builder soloNbQuestions(int v)      { this.soloNbQuestions = v; return this; }
         public Builder roundTimerMs(int v)         { this.roundTimerMs = v; return this; }
         public Builder partitionMax(int v)         { this.partitionMax = v; return this; }
+        public Builder retentionHistorique(int v)  { this.retentionHistorique = v; return this; }
+        public Builder modeExecution(String v)     { this.modeExecution = v; return this; }
+        public Builder maxThreadsSessions(int v)   { this.maxThreadsSessions = v; return this; }
+        public Builder maxThreadsMatchs(int v)     { this.maxThreadsMatchs = v; return this; }
+        public Builder maxThreadsEcriture(int v)   { this.maxThreadsEcriture = v; return this; }
+        public Builder threadsAccueil(int v)       { this.threadsAccueil = v; return this; }
+        public Builder fileAccueil(int v)          { this.fileAccueil = v; return this; }
+        public Builder maxSessionsSimultanees(int v) { this.maxSessionsSimultanees = v; return this; }
+        public Builder maxMatchsSimultanes(int v)  { this.maxMatchsSimultanes = v; return this; }
+        public Builder capaciteSortie(int v)       { this.capaciteSortie = v; return this; }
+        public Builder politiqueConsommateurLent(String v) { this.politiqueConsommateurLent = v; return this; }
         public Builder secretPartage(String v)     { this.secretPartage = v; return this; }
+        public Builder dureeSessionMs(long v)      { this.dureeSessionMs = v; return this; }
+        public Builder schemaHachage(String v)     { this.schemaHachage = v; return this; }
+        public Builder iterationsHachage(int v)    { this.iterationsHachage = v; return this; }
+        public Builder threadsHachage(int v)       { this.threadsHachage = v; return this; }
+        public Builder fileHachage(int v)          { this.fileHachage = v; return this; }
         public Builder fichierStorage(String v)        { this.fichierStorage = v; return this; }
+        public Builder moteurStorage(String v)         { this.moteurStorage = v; return this; }
+        public Builder seuilCompactionJournal(int v)   { this.seuilCompactionJournal = v; return this; }
+        public Builder intervalleEcritureMs(long v)    { this.intervalleEcritureMs = v; return this; }
+        public Builder seuilLotEcriture(int v)         { this.seuilLotEcriture = v; return this; }
+        public Builder politiqueFsync(String v)        { this.politiqueFsync = v; return this; }
 
         public SlaveConfig build() { return new SlaveConfig(this); }
     }
@@ -0,0 +1,101 @@
+package serveur.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * État de l'agrégation incrémentale des scores côté maître.
+ *
+ * <p>Pour chaque esclave, le maître retient l'époque et la version de ses
+ * scores déjà reçus ainsi que le dernier total connu par joueur ; il ne
+ * demande ensuite que les joueurs modifiés ({@code GET_SCORES_SINCE}).
+ * Le total global d'un joueur est la somme de ses totaux sur tous les
+ * esclaves, tenue à jour par différence. Non synchronisé : utilisé par le
+ * seul thread d'agrégation.</p>
+ */
+public class AgregationScores {
+
+    private static final class EtatEsclave {
+        long epoque;
+        long version;
+        final Map<String, Integer> scores = new HashMap<>();
+    }
+
+    private final Map<String, EtatEsclave> esclaves = new HashMap<>();
+    private final Map<String, Integer> sommes = new HashMap<>();
+
+    /** Requête à envoyer à l'esclave (sans token). */
+    public String requete(String esclaveId) {
+        EtatEsclave e = esclaves.get(esclaveId);
+        return e == null
+            ? "GET_SCORES_SINCE:0:0"
+            : "GET_SCORES_SINCE:" + e.epoque + ":" + e.version;
+    }
+
+    /**
+     * Intègre la réponse d'un esclave (SCORES_VERSION, lignes nom;score, END_SCORES).
+     * Une réponse sans en-tête (esclave ne connaissant que GET_SCORES) est
+     * traitée comme un état complet sans version.
+     *
+     * @return les joueurs dont le total global a changé, avec leur nouveau total
+     */
+    public Map<String, Integer> integrer(String esclaveId, List<String> lignes) {
+        Map<String, Integer> modifies = new HashMap<>();
+        if (lignes.isEmpty() || lignes.get(0).startsWith("ERREUR")) return modifies;
+        EtatEsclave etat = esclaves.computeIfAbsent(esclaveId, k -> new EtatEsclave());
+
+        boolean complet = true;
+        int debut = 0;
+        if (!lignes.isEmpty() && lignes.get(0).startsWith("SCORES_VERSION:")) {
+            String[] entete = lignes.get(0).substring(15).split(":");
+            if (entete.length == 3) {
+                try {
+                    etat.epoque = Long.parseLong(entete[0]);
+                    etat.version = Long.parseLong(entete[1]);
+                    complet = "FULL".equals(entete[2]);
+                } catch (NumberFormatException e) {
+                    etat.epoque = 0;
+                    etat.version = 0;
+                }
+            }
+            debut = 1;
+        } else {
+            etat.epoque = 0;
+            etat.version = 0;
+        }
+
+        Map<String, Integer> recus = new HashMap<>();
+        for (int i = debut; i < lignes.size(); i++) {
+            String ligne = lignes.get(i);
+            if ("END_SCORES".equals(ligne)) break;
+            String[] parts = ligne.split(";");
+            if (parts.length != 2) continue;
+            try {
+                recus.put(parts[0], Integer.parseInt(parts[1]));
+            } catch (NumberFormatException ignored) {}
+        }
+
+        if (complet) {
+            // Joueurs disparus de l'état complet : leur contribution est retirée
+            for (Map.Entry<String, Integer> e : etat.scores.entrySet()) {
+                if (!recus.containsKey(e.getKey())) {
+                    ajusterSomme(e.getKey(), -e.getValue(), modifies);
+                }
+            }
+            etat.scores.keySet().retainAll(recus.keySet());
+        }
+        recus.forEach((nom, total) -> {
+            Integer ancien = etat.scores.put(nom, total);
+            int diff = total - (ancien == null ? 0 : ancien);
+            if (diff != 0 || ancien == null) ajusterSomme(nom, diff, modifies);
+        });
+        return modifies;
+    }
+
+    private void ajusterSomme(String nom, int diff, Map<String, Integer> modifies) {
+        int somme = sommes.getOrDefault(nom, 0) + diff;
+        sommes.put(nom, somme);
+        modifies.put(nom, somme);
+    }
+}
@@ -0,0 +1,124 @@
+package serveur.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Anneau de hachage cohérent avec nœuds virtuels : attribue chaque joueur à
+ * l'esclave propriétaire de ses scores.
+ *
+ * <p>Immuable : le maître en publie une nouvelle version quand l'ensemble des
+ * esclaves actifs change, et la transmet aux esclaves dans les réponses
+ * REGISTER / HEARTBEAT ({@link #serialiser()}). L'anneau ne dépend que de la
+ * liste des membres et du nombre de nœuds virtuels, donc maître et esclaves
+ * calculent le même propriétaire. L'arrivée ou le départ d'un esclave ne
+ * déplace que les clés de ses propres segments (≈ 1/n des joueurs).</p>
+ */
+public final class AnneauHachage {
+
+    public static final AnneauHachage VIDE = new AnneauHachage(0, 1, Collections.emptyList());
+
+    private final long version;
+    private final int noeudsVirtuels;
+    private final List<String> membres;
+    private final long[] positions;
+    private final String[] proprietaires;
+
+    /**
+     * @param membres identifiants des esclaves (l'ordre est indifférent)
+     */
+    public AnneauHachage(long version, int noeudsVirtuels, Collection<String> membres) {
+        this.version = version;
+        this.noeudsVirtuels = Math.max(1, noeudsVirtuels);
+        this.membres = Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(membres)));
+
+        int n = this.membres.size() * this.noeudsVirtuels;
+        long[][] points = new long[n][2];
+        int k = 0;
+        for (int m = 0; m < this.membres.size(); m++) {
+            String id = this.membres.get(m);
+            for (int v = 0; v < this.noeudsVirtuels; v++) {
+                points[k][0] = hacher(id + "#" + v);
+                points[k][1] = m;
+                k++;
+            }
+        }
+        // Collisions départagées par l'ordre des membres : tri déterministe
+        Arrays.sort(points, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.positions = new long[n];
+        this.proprietaires = new String[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = points[i][0];
+            proprietaires[i] = this.membres.get((int) points[i][1]);
+        }
+    }
+
+    /**
+     * Esclave propriétaire de la clé : premier nœud virtuel à partir de sa
+     * position sur l'anneau. Null si l'anneau est vide.
+     */
+    public String proprietaire(String cle) {
+        if (positions.length == 0) return null;
+        int i = Arrays.binarySearch(positions, hacher(cle));
+        if (i < 0) i = -i - 1;
+        if (i == positions.length) i = 0;
+        return proprietaires[i];
+    }
+
+    public long getVersion()         { return version; }
+    public int getNoeudsVirtuels()   { return noeudsVirtuels; }
+    public List<String> getMembres() { return membres; }
+    public boolean estVide()         { return membres.isEmpty(); }
+
+    /** Même ensemble de membres et même nombre de nœuds virtuels (version ignorée). */
+    public boolean memeTopologie(AnneauHachage autre) {
+        return autre != null && noeudsVirtuels == autre.noeudsVirtuels && membres.equals(autre.membres);
+    }
+
+    // --- Sérialisation : "version:noeudsVirtuels:S1,S2,S3" ---
+
+    public String serialiser() {
+        return version + ":" + noeudsVirtuels + ":" + String.join(",", membres);
+    }
+
+    /**
+     * @return l'anneau décrit, ou null si le format est invalide
+     */
+    public static AnneauHachage deserialiser(String s) {
+        if (s == null) return null;
+        String[] parts = s.split(":", 3);
+        if (parts.length != 3) return null;
+        try {
+            long version = Long.parseLong(parts[0].trim());
+            int vnodes = Integer.parseInt(parts[1].trim());
+            List<String> membres = new ArrayList<>();
+            for (String id : parts[2].split(",")) {
+                if (!id.isBlank()) membres.add(id.trim());
+            }
+            return new AnneauHachage(version, vnodes, membres);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // --- Hachage ---
+
+    /** FNV-1a 64 bits suivi d'un brassage final (stable entre JVM, bien distribué). */
+    static long hacher(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
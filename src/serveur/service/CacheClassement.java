@@ -0,0 +1,95 @@
+package serveur.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classement publié sous forme d'instantanés immuables et pré-sérialisés.
+ *
+ * <p>Un instantané est reconstruit seulement quand la version de
+ * {@link ScoreService} a changé depuis le précédent ; entre-temps, toutes les
+ * requêtes partagent les mêmes chaînes. Le classement complet et la première
+ * page sont pré-formatés ; les autres pages sont découpées dans le tableau
+ * des lignes déjà formatées.</p>
+ */
+public class CacheClassement {
+    public static final String DEBUT = "LEADERBOARD_BEGIN";
+    public static final String FIN = "LEADERBOARD_END";
+
+    private static final class Instantane {
+        final long version;
+        final String[] lignes;   // "nom;score", dans l'ordre du classement
+        final String complet;    // bloc complet DEBUT ... FIN
+        final String premierePage;
+
+        Instantane(long version, String[] lignes, int taillePage) {
+            this.version = version;
+            this.lignes = lignes;
+            this.complet = bloc(lignes, 0, lignes.length);
+            this.premierePage = bloc(lignes, 0, Math.min(taillePage, lignes.length));
+        }
+    }
+
+    private final ScoreService scores;
+    private final int taillePage;
+    private volatile Instantane courant;
+
+    public CacheClassement(ScoreService scores, int taillePage) {
+        this.scores = scores;
+        this.taillePage = taillePage > 0 ? taillePage : 50;
+    }
+
+    /** Bloc complet (tous les joueurs), prêt à écrire. */
+    public String complet() {
+        return actuel().complet;
+    }
+
+    /** Bloc d'une page du classement, prêt à écrire. */
+    public String page(int offset, int limit) {
+        Instantane i = actuel();
+        int debut = Math.max(0, Math.min(offset, i.lignes.length));
+        int fin = limit <= 0 ? i.lignes.length : (int) Math.min((long) debut + limit, i.lignes.length);
+        if (debut == 0 && fin == Math.min(taillePage, i.lignes.length)) return i.premierePage;
+        return bloc(i.lignes, debut, fin);
+    }
+
+    public int getTaillePage() {
+        return taillePage;
+    }
+
+    // --- Instantanés ---
+
+    private Instantane actuel() {
+        Instantane i = courant;
+        if (i != null && i.version == scores.getVersion()) return i;
+        synchronized (this) {
+            i = courant;
+            // Version lue avant le classement : au pire l'instantané est plus
+            // récent que sa version, et sera reconstruit une fois de trop.
+            long version = scores.getVersion();
+            if (i == null || i.version != version) {
+                i = new Instantane(version, formater(scores.getClassement()), taillePage);
+                courant = i;
+            }
+            return i;
+        }
+    }
+
+    private static String[] formater(List<Map.Entry<String, Integer>> classement) {
+        String[] lignes = new String[classement.size()];
+        for (int k = 0; k < lignes.length; k++) {
+            Map.Entry<String, Integer> e = classement.get(k);
+            lignes[k] = e.getKey() + ";" + e.getValue();
+        }
+        return lignes;
+    }
+
+    private static String bloc(String[] lignes, int debut, int fin) {
+        StringBuilder sb = new StringBuilder(DEBUT.length() + FIN.length() + 2 + (fin - debut) * 24);
+        sb.append(DEBUT).append('\n');
+        for (int k = debut; k < fin; k++) {
+            sb.append(lignes[k]).append('\n');
+        }
+        return sb.append(FIN).append('\n').toString();
+    }
+}
@@ -0,0 +1,194 @@
+package serveur.service;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connexion TCP persistante et multiplexée entre maître et esclaves.
+ *
+ * <p>Protocole (une ligne par trame) :
+ * <pre>
+ *   → CANAL[;token=xxx]          ← OK:CANAL | ERREUR:Auth
+ *   → REQ:&lt;id&gt;;&lt;message&gt;
+ *   ← RES:&lt;id&gt;;&lt;ligne de réponse&gt;   (0..n fois)
+ *   ← FIN:&lt;id&gt;
+ * </pre>
+ * Plusieurs requêtes peuvent être en vol simultanément ; les réponses
+ * sont rattachées à leur requête par l'identifiant.</p>
+ */
+public class CanalMultiplexe implements Closeable {
+
+    public static final String OUVERTURE = "CANAL";
+    public static final String OUVERTURE_OK = "OK:CANAL";
+
+    private final Socket socket;
+    private final BufferedReader in;
+    private final PrintWriter out;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Long, Attente> enAttente = new ConcurrentHashMap<>();
+    private volatile boolean ouvert = true;
+
+    /** Réponse en cours de réception. */
+    private static class Attente {
+        final List<String> lignes = new ArrayList<>();
+        final CompletableFuture<List<String>> fin = new CompletableFuture<>();
+    }
+
+    public CanalMultiplexe(String host, int port, String secret, int timeoutMs) throws IOException {
+        this.socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), timeoutMs);
+        socket.setTcpNoDelay(true);
+        socket.setKeepAlive(true);
+        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        this.out = new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+
+        socket.setSoTimeout(timeoutMs);
+        out.print(secret != null ? OUVERTURE + ";token=" + secret : OUVERTURE);
+        out.print('\n');
+        out.flush();
+        String reponse = in.readLine();
+        if (!OUVERTURE_OK.equals(reponse)) {
+            socket.close();
+            throw new IOException("Canal refusé par " + host + ":" + port + " (" + reponse + ")");
+        }
+        socket.setSoTimeout(0);
+
+        Thread lecteur = new Thread(this::boucleLecture, "Canal-" + host + ":" + port);
+        lecteur.setDaemon(true);
+        lecteur.start();
+    }
+
+    /**
+     * Envoie une requête et attend toutes ses lignes de réponse.
+     * @throws SocketTimeoutException sans réponse complète dans le délai ; le
+     *         canal reste ouvert, c'est au propriétaire ({@link PoolCanaux}) de l'écarter
+     */
+    public List<String> requete(String message, long timeoutMs) throws IOException {
+        if (!ouvert) throw new IOException("Canal fermé");
+        long id = sequence.incrementAndGet();
+        Attente attente = new Attente();
+        enAttente.put(id, attente);
+        if (!ouvert) {
+            // close() concurrent : il a pu vider enAttente avant notre ajout
+            enAttente.remove(id);
+            throw new IOException("Canal fermé");
+        }
+
+        synchronized (out) {
+            out.print("REQ:" + id + ";" + message + "\n");
+            out.flush();
+        }
+        if (out.checkError()) {
+            enAttente.remove(id);
+            close();
+            throw new IOException("Écriture impossible sur le canal");
+        }
+
+        try {
+            return attente.fin.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            enAttente.remove(id);
+            throw new SocketTimeoutException("Pas de réponse en " + timeoutMs + " ms");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            enAttente.remove(id);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    public boolean isOuvert() {
+        return ouvert;
+    }
+
+    @Override
+    public void close() {
+        ouvert = false;
+        try { socket.close(); } catch (IOException ignored) {}
+        IOException cause = new IOException("Canal fermé");
+        enAttente.values().forEach(a -> a.fin.completeExceptionally(cause));
+        enAttente.clear();
+    }
+
+    private void boucleLecture() {
+        try {
+            String ligne;
+            while ((ligne = in.readLine()) != null) {
+                if (ligne.startsWith("RES:")) {
+                    int sep = ligne.indexOf(';', 4);
+                    if (sep < 0) continue;
+                    Attente a = enAttente.get(parseId(ligne.substring(4, sep)));
+                    if (a != null) a.lignes.add(ligne.substring(sep + 1));
+                } else if (ligne.startsWith("FIN:")) {
+                    Attente a = enAttente.remove(parseId(ligne.substring(4)));
+                    if (a != null) a.fin.complete(a.lignes);
+                }
+            }
+        } catch (IOException ignored) {
+            // connexion coupée : les requêtes en vol échouent ci-dessous
+        } finally {
+            close();
+        }
+    }
+
+    private static long parseId(String s) {
+        try { return Long.parseLong(s); } catch (NumberFormatException e) { return -1; }
+    }
+
+    // ───────────────────────────── Côté serveur ──────────────────────────────
+
+    /**
+     * Sert un canal accepté (après validation de la ligne {@code CANAL}) jusqu'à sa fermeture.
+     * Chaque requête est traitée sur {@code executeur} ; les réponses sont écrites
+     * d'un bloc, de façon atomique vis-à-vis des autres requêtes du canal.
+     */
+    public static void servir(BufferedReader in, PrintWriter out,
+                              TraitementRequete traitement, Executor executeur) throws IOException {
+        synchronized (out) {
+            out.print(OUVERTURE_OK + "\n");
+            out.flush();
+        }
+        String ligne;
+        while ((ligne = in.readLine()) != null) {
+            if (!ligne.startsWith("REQ:")) continue;
+            int sep = ligne.indexOf(';', 4);
+            if (sep < 0) continue;
+            String id = ligne.substring(4, sep);
+            String message = ligne.substring(sep + 1);
+            executeur.execute(() -> repondre(id, message, out, traitement));
+        }
+    }
+
+    private static void repondre(String id, String message, PrintWriter out, TraitementRequete traitement) {
+        StringWriter sw = new StringWriter();
+        try (PrintWriter pw = new PrintWriter(sw)) {
+            traitement.traiter(message, pw);
+        } catch (Exception e) {
+            sw.write("ERREUR:" + e.getMessage());
+        }
+        StringBuilder sb = new StringBuilder();
+        try (BufferedReader r = new BufferedReader(new StringReader(sw.toString()))) {
+            String l;
+            while ((l = r.readLine()) != null) {
+                sb.append("RES:").append(id).append(';').append(l).append('\n');
+            }
+        } catch (IOException ignored) {
+            // lecture en mémoire
+        }
+        sb.append("FIN:").append(id).append('\n');
+        synchronized (out) {
+            out.print(sb);
+            out.flush();
+        }
+    }
+}
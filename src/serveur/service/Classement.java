@@ -0,0 +1,168 @@
+package serveur.service;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Classement maintenu incrémentalement (arbre de rangs — treap augmenté des tailles).
+ *
+ * <p>Ordre : score décroissant, puis nom croissant.
+ * <ul>
+ *   <li>mise à jour d'un score : O(log n)</li>
+ *   <li>top-K : O(log n + k)</li>
+ *   <li>rang d'un joueur : O(log n)</li>
+ * </ul>
+ * Non synchronisé : l'appelant ({@link ScoreService}) protège les accès.</p>
+ */
+public class Classement {
+
+    private static final class Noeud {
+        final String nom;
+        final int score;
+        final int priorite = ThreadLocalRandom.current().nextInt();
+        Noeud gauche;
+        Noeud droite;
+        int taille = 1;
+
+        Noeud(String nom, int score) {
+            this.nom = nom;
+            this.score = score;
+        }
+    }
+
+    private Noeud racine;
+
+    /**
+     * Met à jour la position d'un joueur.
+     * @param ancien score précédent, ou null si le joueur n'était pas classé
+     */
+    public void mettreAJour(String nom, Integer ancien, int nouveau) {
+        if (ancien != null) {
+            if (ancien == nouveau) return;
+            racine = supprimer(racine, nom, ancien);
+        }
+        racine = inserer(racine, new Noeud(nom, nouveau));
+    }
+
+    public int taille() {
+        return taille(racine);
+    }
+
+    /**
+     * Les {@code k} premiers du classement (tous si k &lt;= 0).
+     */
+    public List<Map.Entry<String, Integer>> top(int k) {
+        int n = k > 0 ? Math.min(k, taille()) : taille();
+        List<Map.Entry<String, Integer>> res = new ArrayList<>(n);
+        Deque<Noeud> pile = new ArrayDeque<>();
+        Noeud t = racine;
+        while ((t != null || !pile.isEmpty()) && res.size() < n) {
+            while (t != null) {
+                pile.push(t);
+                t = t.gauche;
+            }
+            t = pile.pop();
+            res.add(new AbstractMap.SimpleImmutableEntry<>(t.nom, t.score));
+            t = t.droite;
+        }
+        return res;
+    }
+
+    /**
+     * Rang (à partir de 1) du joueur ayant ce score, ou -1 s'il est absent.
+     */
+    public int rang(String nom, int score) {
+        int r = 0;
+        Noeud t = racine;
+        while (t != null) {
+            int c = comparer(nom, score, t);
+            if (c == 0) return r + taille(t.gauche) + 1;
+            if (c < 0) {
+                t = t.gauche;
+            } else {
+                r += taille(t.gauche) + 1;
+                t = t.droite;
+            }
+        }
+        return -1;
+    }
+
+    // --- Treap ---
+
+    private static int comparer(String nom, int score, Noeud t) {
+        if (score != t.score) return score > t.score ? -1 : 1;
+        return nom.compareTo(t.nom);
+    }
+
+    private static int taille(Noeud t) {
+        return t == null ? 0 : t.taille;
+    }
+
+    private static void maj(Noeud t) {
+        t.taille = 1 + taille(t.gauche) + taille(t.droite);
+    }
+
+    private static Noeud inserer(Noeud t, Noeud n) {
+        if (t == null) return n;
+        if (n.priorite > t.priorite) {
+            Noeud[] parts = separer(t, n.nom, n.score);
+            n.gauche = parts[0];
+            n.droite = parts[1];
+            maj(n);
+            return n;
+        }
+        if (comparer(n.nom, n.score, t) < 0) {
+            t.gauche = inserer(t.gauche, n);
+        } else {
+            t.droite = inserer(t.droite, n);
+        }
+        maj(t);
+        return t;
+    }
+
+    private static Noeud supprimer(Noeud t, String nom, int score) {
+        if (t == null) return null;
+        int c = comparer(nom, score, t);
+        if (c == 0) return fusionner(t.gauche, t.droite);
+        if (c < 0) {
+            t.gauche = supprimer(t.gauche, nom, score);
+        } else {
+            t.droite = supprimer(t.droite, nom, score);
+        }
+        maj(t);
+        return t;
+    }
+
+    /** Sépare en [clés &lt; (nom, score)], [clés &gt;= (nom, score)]. */
+    private static Noeud[] separer(Noeud t, String nom, int score) {
+        if (t == null) return new Noeud[] { null, null };
+        if (comparer(nom, score, t) > 0) {
+            Noeud[] parts = separer(t.droite, nom, score);
+            t.droite = parts[0];
+            maj(t);
+            return new Noeud[] { t, parts[1] };
+        }
+        Noeud[] parts = separer(t.gauche, nom, score);
+        t.gauche = parts[1];
+        maj(t);
+        return new Noeud[] { parts[0], t };
+    }
+
+    private static Noeud fusionner(Noeud a, Noeud b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priorite > b.priorite) {
+            a.droite = fusionner(a.droite, b);
+            maj(a);
+            return a;
+        }
+        b.gauche = fusionner(a, b.gauche);
+        maj(b);
+        return b;
+    }
+}
@@ -0,0 +1,242 @@
+package serveur.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Contrôle d'admission : borne le nombre d'activités simultanées (sessions
+ * joueurs ou matchs) d'un esclave.
+ *
+ * <p>Au-delà de la capacité, les demandes attendent un créneau dans l'ordre
+ * d'arrivée et reçoivent une estimation de leur attente, rappelée
+ * périodiquement. Une demande est soit un thread bloqué dans
+ * {@link #entrer(LongConsumer)}, soit une activité différée
+ * ({@link #entrerPuis(Runnable, LongConsumer)}) démarrée par le thread qui
+ * libère son créneau.</p>
+ *
+ * <p>L'estimation suit la loi de Little : rang dans la file × durée moyenne
+ * récente (moyenne mobile exponentielle) / capacité. Le rang est recalculé à
+ * chaque rappel : numéro de ticket moins le nombre de demandes déjà sorties
+ * de la file.</p>
+ */
+public class ControleAdmission {
+    private static final long RAPPEL_MS = 10_000;
+    private static final double LISSAGE = 0.2;
+
+    /** Demande en file d'attente. */
+    private static final class Demande {
+        final long ticket;
+        final LongConsumer annoncerEtaMs;
+        /** Activité à démarrer une fois admise ; null pour un thread bloqué. */
+        final Runnable demarrer;
+        boolean admise;
+        long dernierRappel;
+
+        Demande(long ticket, LongConsumer annoncerEtaMs, Runnable demarrer) {
+            this.ticket = ticket;
+            this.annoncerEtaMs = annoncerEtaMs;
+            this.demarrer = demarrer;
+        }
+    }
+
+    private final int capacite;
+    private final ArrayDeque<Demande> file = new ArrayDeque<>();
+    private int occupes;
+    /** Tickets distribués et demandes sorties de la file (admises ou abandonnées). */
+    private long tickets;
+    private long sorties;
+    private double dureeMoyenneMs;
+
+    /**
+     * @param capacite        activités simultanées maximales (&lt;= 0 : illimité)
+     * @param dureeInitialeMs durée moyenne supposée tant qu'aucune activité n'est terminée
+     */
+    public ControleAdmission(int capacite, long dureeInitialeMs) {
+        this.capacite = capacite > 0 ? capacite : Integer.MAX_VALUE;
+        this.dureeMoyenneMs = Math.max(1, dureeInitialeMs);
+    }
+
+    /**
+     * Prend un créneau, en attendant si besoin.
+     * @param annoncerEtaMs reçoit l'attente estimée (ms) avant l'attente, puis à chaque rappel
+     */
+    public void entrer(LongConsumer annoncerEtaMs) throws InterruptedException {
+        Demande d;
+        synchronized (this) {
+            if (prendreLibre()) return;
+            d = mettreEnFile(annoncerEtaMs, null);
+        }
+        try {
+            while (true) {
+                long eta;
+                synchronized (this) {
+                    if (d.admise) return;
+                    eta = estimerAttenteMs(d);
+                }
+                annoncerEtaMs.accept(eta);
+                synchronized (this) {
+                    long fin = System.currentTimeMillis() + RAPPEL_MS;
+                    long reste = RAPPEL_MS;
+                    while (!d.admise && reste > 0) {
+                        wait(reste);
+                        reste = fin - System.currentTimeMillis();
+                    }
+                    if (d.admise) return;
+                }
+            }
+        } catch (InterruptedException e) {
+            List<Runnable> aDemarrer = null;
+            synchronized (this) {
+                if (d.admise) {
+                    occupes--;
+                    aDemarrer = admettre();
+                } else {
+                    file.remove(d);
+                    sorties++;
+                }
+            }
+            demarrer(aDemarrer);
+            throw e;
+        }
+    }
+
+    /**
+     * Démarre une activité dès qu'un créneau est libre, sans bloquer l'appelant.
+     * Tant qu'elle attend, la demande reçoit l'attente estimée à son entrée en
+     * file puis à chaque {@link #rappeler()}.
+     * @param demarrer exécuté une fois le créneau pris, par l'appelant ou par le
+     *                 thread qui libère le créneau ; doit appeler {@link #rendre()}
+     *                 si l'activité ne peut pas démarrer
+     */
+    public void entrerPuis(Runnable demarrer, LongConsumer annoncerEtaMs) {
+        long eta;
+        synchronized (this) {
+            if (prendreLibre()) {
+                eta = -1;
+            } else {
+                Demande d = mettreEnFile(annoncerEtaMs, demarrer);
+                d.dernierRappel = System.currentTimeMillis();
+                eta = estimerAttenteMs(d);
+            }
+        }
+        if (eta < 0) {
+            demarrer.run();
+        } else {
+            annoncerEtaMs.accept(eta);
+        }
+    }
+
+    /**
+     * Rappelle leur attente estimée aux activités différées dont la dernière
+     * annonce date d'au moins l'intervalle de rappel.
+     */
+    public void rappeler() {
+        List<Runnable> annonces = new ArrayList<>();
+        synchronized (this) {
+            long maintenant = System.currentTimeMillis();
+            for (Demande d : file) {
+                if (d.demarrer == null || maintenant - d.dernierRappel < RAPPEL_MS) continue;
+                d.dernierRappel = maintenant;
+                long eta = estimerAttenteMs(d);
+                annonces.add(() -> d.annoncerEtaMs.accept(eta));
+            }
+        }
+        annonces.forEach(Runnable::run);
+    }
+
+    /** Rend un créneau pris pour une activité qui n'a pas pu démarrer. */
+    public void rendre() {
+        List<Runnable> aDemarrer;
+        synchronized (this) {
+            occupes--;
+            aDemarrer = admettre();
+        }
+        demarrer(aDemarrer);
+    }
+
+    /**
+     * Libère le créneau d'une activité terminée.
+     * @param dureeMs durée de l'activité, prise en compte dans la moyenne
+     */
+    public void sortir(long dureeMs) {
+        List<Runnable> aDemarrer;
+        synchronized (this) {
+            dureeMoyenneMs += LISSAGE * (Math.max(0, dureeMs) - dureeMoyenneMs);
+            occupes--;
+            aDemarrer = admettre();
+        }
+        demarrer(aDemarrer);
+    }
+
+    /** Attente estimée (ms) pour la demande de ce rang dans la file. */
+    public synchronized long estimerAttenteMs(int rang) {
+        return capacite == Integer.MAX_VALUE ? 0 : (long) Math.ceil(dureeMoyenneMs * Math.max(1, rang) / capacite);
+    }
+
+    /** Message envoyé au joueur mis en attente : {@code EN_ATTENTE:ETA=<secondes>}. */
+    public static String messageAttente(long etaMs) {
+        return "EN_ATTENTE:ETA=" + (etaMs + 999) / 1000;
+    }
+
+    /** Vrai si aucun créneau n'est libre : toute nouvelle demande attendra. */
+    public synchronized boolean estSature() {
+        return occupes >= capacite || !file.isEmpty();
+    }
+
+    public synchronized int getEnAttente() {
+        return file.size();
+    }
+
+    public synchronized int getOccupes() {
+        return occupes;
+    }
+
+    // ───────────────────────── Interne (sous le moniteur) ─────────────────────────
+
+    /** Prend un créneau libre si personne n'attend déjà. */
+    private boolean prendreLibre() {
+        if (!file.isEmpty() || occupes >= capacite) return false;
+        occupes++;
+        return true;
+    }
+
+    private Demande mettreEnFile(LongConsumer annoncerEtaMs, Runnable demarrer) {
+        Demande d = new Demande(++tickets, annoncerEtaMs, demarrer);
+        file.addLast(d);
+        return d;
+    }
+
+    private long estimerAttenteMs(Demande d) {
+        return estimerAttenteMs((int) Math.min(Integer.MAX_VALUE, d.ticket - sorties));
+    }
+
+    /**
+     * Attribue les créneaux libres aux demandes de tête. Les threads bloqués
+     * sont réveillés ; les activités différées sont retournées pour être
+     * démarrées hors du moniteur.
+     */
+    private List<Runnable> admettre() {
+        List<Runnable> aDemarrer = null;
+        boolean reveiller = false;
+        while (occupes < capacite && !file.isEmpty()) {
+            Demande d = file.pollFirst();
+            sorties++;
+            occupes++;
+            d.admise = true;
+            if (d.demarrer == null) {
+                reveiller = true;
+            } else {
+                if (aDemarrer == null) aDemarrer = new ArrayList<>();
+                aDemarrer.add(d.demarrer);
+            }
+        }
+        if (reveiller) notifyAll();
+        return aDemarrer;
+    }
+
+    private static void demarrer(List<Runnable> aDemarrer) {
+        if (aDemarrer != null) aDemarrer.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,128 @@
+package serveur.service;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Diffusion d'une requête à plusieurs pairs en parallèle (scatter-gather)
+ * avec une échéance globale.
+ *
+ * <p>Toutes les requêtes partent en même temps ; au bout du délai, les
+ * réponses reçues sont retournées et les pairs restants sont marqués
+ * {@link Statut#DELAI_DEPASSE}. Un pair lent ou injoignable ne retarde donc
+ * jamais l'appelant au-delà de l'échéance.</p>
+ *
+ * <p>Chaque requête reçoit le temps restant avant l'échéance comme délai
+ * (connexion comprise) et les requêtes encore en cours à l'échéance sont
+ * interrompues : un pair bloqué n'accumule pas de threads dans l'exécuteur.</p>
+ */
+public class DiffusionRequetes {
+
+    public enum Statut { OK, ERREUR, DELAI_DEPASSE }
+
+    /** Pair à interroger. */
+    public static final class Cible {
+        public final String id;
+        public final String host;
+        public final int port;
+
+        public Cible(String id, String host, int port) {
+            this.id = id;
+            this.host = host;
+            this.port = port;
+        }
+    }
+
+    /** Réponse (ou absence de réponse) d'un pair. */
+    public static final class Reponse {
+        public final String id;
+        public final Statut statut;
+        public final List<String> lignes;
+        public final String erreur;
+
+        Reponse(String id, Statut statut, List<String> lignes, String erreur) {
+            this.id = id;
+            this.statut = statut;
+            this.lignes = lignes;
+            this.erreur = erreur;
+        }
+    }
+
+    private final PoolCanaux canaux;
+    private final ExecutorService executeur;
+
+    public DiffusionRequetes(PoolCanaux canaux, ExecutorService executeur) {
+        this.canaux = canaux;
+        this.executeur = executeur;
+    }
+
+    /**
+     * Interroge toutes les cibles en parallèle et attend au plus {@code delaiMs}.
+     * @return une réponse par cible, dans l'ordre des cibles
+     */
+    public List<Reponse> interroger(List<Cible> cibles, Function<Cible, String> requete, long delaiMs) {
+        long echeance = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delaiMs);
+        List<Future<List<String>>> futurs = new ArrayList<>(cibles.size());
+        for (Cible c : cibles) {
+            String message = requete.apply(c);
+            futurs.add(executeur.submit(() -> {
+                long resteMs = TimeUnit.NANOSECONDS.toMillis(echeance - System.nanoTime());
+                if (resteMs <= 0) throw new SocketTimeoutException("délai dépassé avant l'envoi");
+                return canaux.requete(c.host, c.port, message, resteMs);
+            }));
+        }
+
+        // Attente commune : chaque get() ne dispose que du temps restant
+        List<Reponse> reponses = new ArrayList<>(cibles.size());
+        for (int i = 0; i < cibles.size(); i++) {
+            String id = cibles.get(i).id;
+            Future<List<String>> f = futurs.get(i);
+            try {
+                List<String> lignes = f.get(Math.max(0, echeance - System.nanoTime()), TimeUnit.NANOSECONDS);
+                reponses.add(new Reponse(id, Statut.OK, lignes, null));
+            } catch (TimeoutException | CancellationException e) {
+                f.cancel(true);
+                reponses.add(new Reponse(id, Statut.DELAI_DEPASSE, List.of(), "délai dépassé"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                f.cancel(true);
+                reponses.add(new Reponse(id, Statut.DELAI_DEPASSE, List.of(), "interrompu"));
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                Statut statut = cause instanceof SocketTimeoutException ? Statut.DELAI_DEPASSE : Statut.ERREUR;
+                reponses.add(new Reponse(id, statut, List.of(), cause.getMessage()));
+            }
+        }
+        return reponses;
+    }
+
+    /**
+     * Fusionne des listes déjà triées selon {@code ordre} (fusion k-voies).
+     */
+    public static List<String> fusionnerTriees(List<List<String>> listes, Comparator<String> ordre) {
+        List<String> res = new ArrayList<>();
+        // Tête de chaque liste : {index de la liste, position}
+        PriorityQueue<int[]> tetes = new PriorityQueue<>(Math.max(1, listes.size()),
+            (a, b) -> ordre.compare(listes.get(a[0]).get(a[1]), listes.get(b[0]).get(b[1])));
+        for (int i = 0; i < listes.size(); i++) {
+            if (!listes.get(i).isEmpty()) tetes.add(new int[] { i, 0 });
+        }
+        while (!tetes.isEmpty()) {
+            int[] t = tetes.poll();
+            List<String> l = listes.get(t[0]);
+            res.add(l.get(t[1]));
+            if (t[1] + 1 < l.size()) tetes.add(new int[] { t[0], t[1] + 1 });
+        }
+        return res;
+    }
+}
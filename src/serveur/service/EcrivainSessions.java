@@ -0,0 +1,83 @@
+package serveur.service;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Écriture asynchrone vers les joueurs : paramètres et métriques partagés
+ * par les files sortantes de toutes les sessions.
+ *
+ * <p>Chaque session dépose ses lignes dans une file bornée
+ * ({@link #getCapacite()}) ; une tâche d'écriture, lancée sur
+ * {@link #executer(Runnable)} seulement quand la file n'est pas vide, écrit
+ * toutes les lignes en attente puis vide le tampon une seule fois. Un client
+ * lent ne bloque donc que sa propre tâche, jamais les diffusions du match.</p>
+ *
+ * <p>File pleine (consommateur lent) : {@code DISCONNECT} (défaut) ferme la
+ * session, {@code DROP} abandonne la ligne.</p>
+ */
+public class EcrivainSessions {
+    public static final String POLITIQUE_DECONNECTER = "DISCONNECT";
+    public static final String POLITIQUE_ABANDONNER = "DROP";
+
+    private final Executor executeur;
+    private final int capacite;
+    private final boolean deconnecter;
+
+    private final AtomicInteger picProfondeur = new AtomicInteger();
+    private final AtomicLong lignesEcrites = new AtomicLong();
+    private final AtomicLong lotsEcrits = new AtomicLong();
+    private final AtomicLong lignesAbandonnees = new AtomicLong();
+    private final AtomicLong deconnexions = new AtomicLong();
+
+    public EcrivainSessions(Executor executeur, int capacite, String politique) {
+        this.executeur = executeur;
+        this.capacite = Math.max(1, capacite);
+        this.deconnecter = politique == null
+            || !POLITIQUE_ABANDONNER.equals(politique.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public int getCapacite() {
+        return capacite;
+    }
+
+    /** Vrai si un consommateur lent est déconnecté (sinon ses lignes sont abandonnées). */
+    public boolean isDeconnecter() {
+        return deconnecter;
+    }
+
+    public void executer(Runnable tacheEcriture) {
+        executeur.execute(tacheEcriture);
+    }
+
+    // ─────────────────────────── Métriques ───────────────────────────────
+
+    public void signalerProfondeur(int profondeur) {
+        picProfondeur.accumulateAndGet(profondeur, Math::max);
+    }
+
+    public void compterLot(int lignes) {
+        lignesEcrites.addAndGet(lignes);
+        lotsEcrits.incrementAndGet();
+    }
+
+    public void compterAbandon() {
+        lignesAbandonnees.incrementAndGet();
+    }
+
+    public void compterDeconnexion() {
+        deconnexions.incrementAndGet();
+    }
+
+    /** Profondeur maximale atteinte par une file depuis l'appel précédent (remise à zéro). */
+    public int extrairePicProfondeur() {
+        return picProfondeur.getAndSet(0);
+    }
+
+    public long getLignesEcrites()      { return lignesEcrites.get(); }
+    public long getLotsEcrits()         { return lotsEcrits.get(); }
+    public long getLignesAbandonnees()  { return lignesAbandonnees.get(); }
+    public long getDeconnexions()       { return deconnexions.get(); }
+}
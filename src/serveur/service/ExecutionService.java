@@ -0,0 +1,123 @@
+package serveur.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Couche d'exécution des tâches longues d'un esclave (sessions joueurs et matchs).
+ *
+ * <p>Deux modes :
+ * <ul>
+ *   <li><b>VIRTUAL</b> (défaut) : un thread virtuel par tâche — une session qui attend
+ *       la fin de son match ne consomme pas de thread natif. Nécessite Java 21+ ;
+ *       sur un JDK plus ancien, bascule automatiquement en mode PLATFORM.</li>
+ *   <li><b>PLATFORM</b> : pools bornés de threads plateforme. Les tâches en excès
+ *       attendent qu'un thread se libère.</li>
+ * </ul>
+ *
+ * <p>Sessions et matchs ont des exécuteurs séparés : en mode borné, des sessions
+ * en attente de match ne peuvent ainsi jamais empêcher ce match de démarrer.
+ * Les écritures vers les joueurs (tâches courtes, lancées seulement quand une
+ * file sortante n'est pas vide) ont aussi leur propre exécuteur. En mode borné,
+ * il a par défaut autant de threads que les sessions : chaque session n'a
+ * qu'une tâche d'écriture à la fois, donc un client à la fenêtre TCP pleine
+ * ne bloque que la sienne.</p>
+ */
+public class ExecutionService {
+
+    public static final String MODE_VIRTUAL = "VIRTUAL";
+    public static final String MODE_PLATFORM = "PLATFORM";
+
+    private final ExecutorService sessions;
+    private final ExecutorService matchs;
+    private final ExecutorService ecritures;
+    private final boolean virtuel;
+
+    public ExecutionService(String mode, int maxThreadsSessions, int maxThreadsMatchs) {
+        this(mode, maxThreadsSessions, maxThreadsMatchs, 0);
+    }
+
+    /**
+     * @param maxThreadsEcriture threads d'écriture en mode borné (&lt;= 0 : autant que de sessions)
+     */
+    public ExecutionService(String mode, int maxThreadsSessions, int maxThreadsMatchs, int maxThreadsEcriture) {
+        ExecutorService s = null;
+        ExecutorService m = null;
+        ExecutorService e = null;
+        if (!MODE_PLATFORM.equalsIgnoreCase(mode)) {
+            s = creerVirtuel("Session");
+            m = creerVirtuel("Match");
+            e = creerVirtuel("Ecriture");
+        }
+        this.virtuel = s != null && m != null && e != null;
+        if (!virtuel) {
+            if (s != null) s.shutdown();
+            if (m != null) m.shutdown();
+            if (e != null) e.shutdown();
+            s = creerPlateforme("Session", maxThreadsSessions);
+            m = creerPlateforme("Match", maxThreadsMatchs);
+            e = creerPlateforme("Ecriture", maxThreadsEcriture > 0 ? maxThreadsEcriture : maxThreadsSessions);
+        }
+        this.sessions = s;
+        this.matchs = m;
+        this.ecritures = e;
+    }
+
+    public void executerSession(Runnable tache) {
+        sessions.execute(tache);
+    }
+
+    public void executerMatch(Runnable tache) {
+        matchs.execute(tache);
+    }
+
+    public void executerEcriture(Runnable tache) {
+        ecritures.execute(tache);
+    }
+
+    public ExecutorService getExecuteurMatchs() {
+        return matchs;
+    }
+
+    public boolean isVirtuel() {
+        return virtuel;
+    }
+
+    public void arreter() {
+        sessions.shutdownNow();
+        matchs.shutdownNow();
+        ecritures.shutdownNow();
+    }
+
+    // ─────────────────────────── Fabriques ───────────────────────────────
+
+    /**
+     * Crée un exécuteur « un thread virtuel par tâche » par réflexion,
+     * pour rester compilable sur Java 17. Retourne null si indisponible.
+     */
+    private static ExecutorService creerVirtuel(String prefixe) {
+        try {
+            Class<?> builderCls = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderCls.getMethod("name", String.class, long.class)
+                .invoke(builder, prefixe + "-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderCls.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class
+                .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                .invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService creerPlateforme(String prefixe, int maxThreads) {
+        AtomicInteger compteur = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(1, maxThreads), r -> {
+            Thread t = new Thread(r, prefixe + "-" + compteur.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -6,86 +6,327 @@ import serveur.Match;
 import serveur.PlayerSession;
 
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
 
 /**
  * Service de matchmaking.
  * Gère la file d'attente des joueurs et la création des matchs.
+ *
+ * <p>Une file par salle, modifiée sous le verrou de son entrée dans une
+ * {@link ConcurrentHashMap} (pas de verrou global). Un ajout qui rend une
+ * salle jouable la signale au matchmaker, qui forme en une passe tous les
+ * groupes possibles des salles signalées : le démarrage d'un match suit
+ * l'arrivée du dernier joueur de quelques millisecondes.</p>
+ *
+ * <p>Les joueurs sans code de salle rejoignent la file publique, répartie en
+ * tranches de cote (voir {@link FilePublique}) pour former des matchs
+ * équilibrés.</p>
  */
 public class MatchmakingService {
-    private final Map<String, List<PlayerSession>> fileAttente = new HashMap<>();
-    private final Object verrou = new Object();
+    /** Clé de signalement de la file publique (jamais un code de salle). */
+    private static final String CLE_PUBLIQUE = "";
+
+    private static final class Salle {
+        final ArrayDeque<PlayerSession> file = new ArrayDeque<>();
+    }
+
+    /**
+     * File publique répartie en tranches de cote de largeur fixe. Chaque
+     * tranche est une FIFO : un groupe s'y forme depuis la tête, sans parcourir
+     * les autres joueurs. Un joueur qui attend depuis k fois l'intervalle
+     * d'élargissement peut être associé aux tranches voisines jusqu'à ±k.
+     */
+    private static final class FilePublique {
+        private static final class Attente {
+            final PlayerSession session;
+            final long depuisMs;
+
+            Attente(PlayerSession session, long depuisMs) {
+                this.session = session;
+                this.depuisMs = depuisMs;
+            }
+        }
+
+        private final TreeMap<Integer, ArrayDeque<Attente>> tranches = new TreeMap<>();
+        private final Map<PlayerSession, Integer> trancheDe = new HashMap<>();
+        private final int largeur;
+        private final long elargissementMs;
+
+        FilePublique(int largeur, long elargissementMs) {
+            this.largeur = Math.max(1, largeur);
+            this.elargissementMs = elargissementMs;
+        }
+
+        /** @return vrai si la tranche du joueur est jouable */
+        synchronized boolean ajouter(PlayerSession session, int cote, int minJoueurs) {
+            int t = Math.floorDiv(cote, largeur);
+            ArrayDeque<Attente> file = tranches.computeIfAbsent(t, k -> new ArrayDeque<>());
+            file.addLast(new Attente(session, System.currentTimeMillis()));
+            trancheDe.put(session, t);
+            return file.size() >= minJoueurs;
+        }
+
+        synchronized boolean retirer(PlayerSession session) {
+            Integer t = trancheDe.remove(session);
+            if (t == null) return false;
+            ArrayDeque<Attente> file = tranches.get(t);
+            file.removeIf(a -> a.session == session);
+            if (file.isEmpty()) tranches.remove(t);
+            return true;
+        }
+
+        /**
+         * Forme les groupes de chaque tranche, puis ceux permis par
+         * l'élargissement (les plus anciennes attentes d'abord).
+         * @return nombre de joueurs sortis de la file (groupés ou déconnectés)
+         */
+        synchronized int former(List<List<PlayerSession>> groupes, int minJoueurs, int maxJoueurs, long maintenant) {
+            int sortis = 0;
+            for (Iterator<ArrayDeque<Attente>> it = tranches.values().iterator(); it.hasNext(); ) {
+                ArrayDeque<Attente> file = it.next();
+                sortis += purger(file);
+                while (file.size() >= minJoueurs) {
+                    List<PlayerSession> groupe = new ArrayList<>(maxJoueurs);
+                    prendre(file, groupe, maxJoueurs);
+                    groupes.add(groupe);
+                    sortis += groupe.size();
+                }
+                if (file.isEmpty()) it.remove();
+            }
+            if (elargissementMs <= 0) return sortis;
+
+            List<Integer> parAnciennete = new ArrayList<>(tranches.keySet());
+            parAnciennete.sort(Comparator.comparingLong(t -> tranches.get(t).peekFirst().depuisMs));
+            for (Integer t : parAnciennete) {
+                ArrayDeque<Attente> file = tranches.get(t);
+                if (file == null) continue;
+                int k = (int) Math.min(Integer.MAX_VALUE / 2,
+                    (maintenant - file.peekFirst().depuisMs) / elargissementMs);
+                if (k <= 0) continue;
+                int disponibles = 0;
+                for (ArrayDeque<Attente> f : tranches.subMap(t - k, true, t + k, true).values()) {
+                    disponibles += f.size();
+                }
+                if (disponibles < minJoueurs) continue;
+
+                // La tranche du joueur, puis les voisines de plus en plus éloignées
+                List<PlayerSession> groupe = new ArrayList<>(maxJoueurs);
+                prendreTranche(t, groupe, maxJoueurs);
+                for (int d = 1; d <= k && groupe.size() < maxJoueurs; d++) {
+                    prendreTranche(t - d, groupe, maxJoueurs);
+                    prendreTranche(t + d, groupe, maxJoueurs);
+                }
+                groupes.add(groupe);
+                sortis += groupe.size();
+            }
+            return sortis;
+        }
+
+        private void prendreTranche(int t, List<PlayerSession> groupe, int maxJoueurs) {
+            ArrayDeque<Attente> file = tranches.get(t);
+            if (file == null) return;
+            prendre(file, groupe, maxJoueurs);
+            if (file.isEmpty()) tranches.remove(t);
+        }
+
+        private void prendre(ArrayDeque<Attente> file, List<PlayerSession> groupe, int maxJoueurs) {
+            while (groupe.size() < maxJoueurs && !file.isEmpty()) {
+                PlayerSession s = file.pollFirst().session;
+                trancheDe.remove(s);
+                groupe.add(s);
+            }
+        }
+
+        private int purger(ArrayDeque<Attente> file) {
+            int avant = file.size();
+            file.removeIf(a -> {
+                if (a.session.isActive()) return false;
+                trancheDe.remove(a.session);
+                return true;
+            });
+            return avant - file.size();
+        }
+    }
+
+    private final Map<String, Salle> salles = new ConcurrentHashMap<>();
+    /** Salles ayant atteint le minimum de joueurs, à traiter par le matchmaker. */
+    private final BlockingQueue<String> sallesPretes = new LinkedBlockingQueue<>();
+    private final Set<String> sallesSignalees = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nbEnAttente = new AtomicInteger();
     private final int minJoueurs;
     private final int maxJoueurs;
+    private final Executor executeurMatchs;
+    private final AtomicInteger matchsEnCours = new AtomicInteger();
+    private final FilePublique publique;
+    /** Cote d'un joueur (à partir de son nom). */
+    private final ToIntFunction<String> cote;
+    private final ControleAdmission admissionMatchs;
 
     public MatchmakingService(int minJoueurs, int maxJoueurs) {
+        this(minJoueurs, maxJoueurs, r -> new Thread(r, "Match-" + System.currentTimeMillis()).start());
+    }
+
+    public MatchmakingService(int minJoueurs, int maxJoueurs, Executor executeurMatchs) {
+        this(minJoueurs, maxJoueurs, executeurMatchs, nom -> 0, Integer.MAX_VALUE, 0,
+            new ControleAdmission(0, 0));
+    }
+
+    /**
+     * @param cote            cote d'un joueur à partir de son nom
+     * @param largeurTranche  écart de cote couvert par une tranche de la file publique
+     * @param elargissementMs attente après laquelle une tranche s'ouvre d'un cran
+     *                        de chaque côté (0 : jamais)
+     * @param admissionMatchs borne le nombre de matchs simultanés
+     */
+    public MatchmakingService(int minJoueurs, int maxJoueurs, Executor executeurMatchs,
+                              ToIntFunction<String> cote, int largeurTranche, long elargissementMs,
+                              ControleAdmission admissionMatchs) {
         this.minJoueurs = minJoueurs;
         this.maxJoueurs = maxJoueurs;
+        this.executeurMatchs = executeurMatchs;
+        this.cote = cote;
+        this.publique = new FilePublique(largeurTranche, elargissementMs);
+        this.admissionMatchs = admissionMatchs;
     }
 
     /**
      * Ajoute un joueur à la file d'attente.
      */
     public void ajouterJoueur(PlayerSession session) {
-        synchronized (verrou) {
-            String key = buildKey(session);
-            fileAttente.computeIfAbsent(key, k -> new ArrayList<>()).add(session);
+        String key = buildKey(session);
+        boolean[] jouable = new boolean[1];
+        if (CLE_PUBLIQUE.equals(key)) {
+            jouable[0] = publique.ajouter(session, cote.applyAsInt(session.getUsername()), minJoueurs);
+        } else {
+            salles.compute(key, (k, salle) -> {
+                if (salle == null) salle = new Salle();
+                salle.file.addLast(session);
+                jouable[0] = salle.file.size() >= minJoueurs;
+                return salle;
+            });
+        }
+        nbEnAttente.incrementAndGet();
+        if (jouable[0] && sallesSignalees.add(key)) {
+            sallesPretes.offer(key);
         }
     }
 
     /**
-     * Essaie de former un groupe pour un match.
-     * @return un groupe de joueurs prêt, ou null si aucun match possible.
+     * Retire un joueur encore en attente (déconnecté avant le début de son match).
      */
-    public List<PlayerSession> prendreGroupePourMatch() {
-        synchronized (verrou) {
-            String keyToUse = null;
-            for (Map.Entry<String, List<PlayerSession>> entry : fileAttente.entrySet()) {
-                List<PlayerSession> queue = entry.getValue();
-                // Nettoyer les sessions fermées
-                queue.removeIf(s -> !s.isActive());
-                if (queue.size() >= minJoueurs) {
-                    keyToUse = entry.getKey();
-                    break;
-                }
-            }
-            if (keyToUse == null) return null;
-
-            List<PlayerSession> queue = fileAttente.get(keyToUse);
-            int count = Math.min(maxJoueurs, queue.size());
-            List<PlayerSession> group = new ArrayList<>(queue.subList(0, count));
-            queue.subList(0, count).clear();
-            if (queue.isEmpty()) {
-                fileAttente.remove(keyToUse);
-            }
-            return group;
+    public void retirerJoueur(PlayerSession session) {
+        String key = buildKey(session);
+        if (CLE_PUBLIQUE.equals(key)) {
+            if (publique.retirer(session)) nbEnAttente.decrementAndGet();
+            return;
+        }
+        salles.computeIfPresent(key, (k, salle) -> {
+            if (salle.file.remove(session)) nbEnAttente.decrementAndGet();
+            return salle.file.isEmpty() ? null : salle;
+        });
+    }
+
+    /**
+     * Attend qu'au moins une salle soit jouable, puis forme tous les groupes
+     * possibles des salles signalées et de la file publique (y compris ceux
+     * que permet l'élargissement des tranches, même sans signal).
+     * @param attenteMs attente maximale d'un signal (0 : aucune)
+     * @return les groupes prêts, dans l'ordre d'arrivée (liste vide si aucun)
+     */
+    public List<List<PlayerSession>> prendreGroupesPourMatch(long attenteMs) throws InterruptedException {
+        List<List<PlayerSession>> groupes = new ArrayList<>();
+        String key = attenteMs > 0 ? sallesPretes.poll(attenteMs, TimeUnit.MILLISECONDS) : sallesPretes.poll();
+        while (key != null) {
+            sallesSignalees.remove(key); // un nouvel ajout pourra la signaler à nouveau
+            if (!CLE_PUBLIQUE.equals(key)) extraireGroupes(key, groupes);
+            key = sallesPretes.poll();
         }
+        nbEnAttente.addAndGet(-publique.former(groupes, minJoueurs, maxJoueurs, System.currentTimeMillis()));
+        admissionMatchs.rappeler(); // groupes en attente d'un créneau de match
+        return groupes;
     }
 
     /**
      * Retourne le nombre de joueurs en attente.
      */
     public int getNbEnAttente() {
-        synchronized (verrou) {
-            return fileAttente.values().stream().mapToInt(List::size).sum();
-        }
+        return nbEnAttente.get();
+    }
+
+    /**
+     * Retourne le nombre de matchs lancés et non encore terminés.
+     */
+    public int getNbMatchsEnCours() {
+        return matchsEnCours.get();
     }
 
     /**
-     * Crée et lance un match avec le groupe donné.
+     * Crée et lance un match avec le groupe donné. Si le nombre maximal de
+     * matchs simultanés est atteint, le groupe est mis en file derrière
+     * l'admission et reçoit l'attente estimée ; son match démarre à la fin d'un
+     * match en cours. L'appelant (le matchmaker) n'est jamais bloqué.
      */
     public void lancerMatch(List<PlayerSession> group, String theme,
                             List<Question> questions, int nbQuestions,
                             int manches, int roundTimerMs,
                             BiConsumer<String, Integer> scoreRecorder,
                             MatchHistory history) {
-        Match match = new Match(theme, questions, group, nbQuestions,
-            manches, roundTimerMs, scoreRecorder, history);
-        new Thread(match::jouer, "Match-" + System.currentTimeMillis()).start();
+        admissionMatchs.entrerPuis(
+            () -> demarrerMatch(new Match(theme, questions, group, nbQuestions,
+                manches, roundTimerMs, scoreRecorder, history)),
+            eta -> {
+                String msg = ControleAdmission.messageAttente(eta);
+                for (PlayerSession p : group) p.send(msg);
+            });
+    }
+
+    /** Exécute un match admis ; son créneau est libéré à la fin. */
+    private void demarrerMatch(Match match) {
+        matchsEnCours.incrementAndGet();
+        long debut = System.currentTimeMillis();
+        try {
+            executeurMatchs.execute(() -> {
+                try {
+                    match.jouer();
+                } finally {
+                    matchsEnCours.decrementAndGet();
+                    admissionMatchs.sortir(System.currentTimeMillis() - debut);
+                }
+            });
+        } catch (RuntimeException e) {
+            matchsEnCours.decrementAndGet();
+            admissionMatchs.rendre();
+            System.err.println("Match non lancé: " + e.getMessage());
+        }
+    }
+
+    private void extraireGroupes(String key, List<List<PlayerSession>> groupes) {
+        salles.computeIfPresent(key, (k, salle) -> {
+            int avant = salle.file.size();
+            // Nettoyer les sessions fermées
+            salle.file.removeIf(s -> !s.isActive());
+            while (salle.file.size() >= minJoueurs) {
+                int count = Math.min(maxJoueurs, salle.file.size());
+                List<PlayerSession> group = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    group.add(salle.file.pollFirst());
+                }
+                groupes.add(group);
+            }
+            nbEnAttente.addAndGet(salle.file.size() - avant);
+            return salle.file.isEmpty() ? null : salle;
+        });
     }
 
     private String buildKey(PlayerSession session) {
-        String room = session.getRoomCode() == null ? "" : session.getRoomCode();
+        String room = session.getRoomCode() == null ? CLE_PUBLIQUE : session.getRoomCode();
         return room;
     }
 }
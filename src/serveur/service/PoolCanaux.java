@@ -0,0 +1,109 @@
+package serveur.service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pool de {@link CanalMultiplexe} par pair (host:port).
+ *
+ * <p>Chaque pair dispose de {@code taille} canaux persistants utilisés à tour
+ * de rôle. Un canal dont une requête expire ou échoue en I/O est fermé et
+ * retiré de son emplacement : il peut être bloqué, et serait sinon réutilisé
+ * indéfiniment. Un canal absent ou fermé est recréé à la demande suivante ;
+ * la connexion se fait sans verrou et le canal est installé par
+ * compare-and-set (le perdant d'une course ferme le sien).</p>
+ */
+public class PoolCanaux {
+
+    private final String secret;
+    private final int taille;
+    private final int timeoutMs;
+    private final Map<String, AtomicReferenceArray<CanalMultiplexe>> canaux = new ConcurrentHashMap<>();
+    private final AtomicInteger tour = new AtomicInteger();
+
+    public PoolCanaux(String secret, int taille, int timeoutMs) {
+        this.secret = secret;
+        this.taille = Math.max(1, taille);
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Envoie une requête au pair et retourne ses lignes de réponse.
+     */
+    public List<String> requete(String host, int port, String message) throws IOException {
+        return requete(host, port, message, timeoutMs);
+    }
+
+    /**
+     * @param delaiMs délai total de la requête ; borne aussi l'ouverture d'un canal
+     */
+    public List<String> requete(String host, int port, String message, long delaiMs) throws IOException {
+        AtomicReferenceArray<CanalMultiplexe> slots =
+            canaux.computeIfAbsent(cle(host, port), k -> new AtomicReferenceArray<>(taille));
+        int i = Math.floorMod(tour.getAndIncrement(), taille);
+        CanalMultiplexe c = obtenir(slots, i, host, port, delaiMs);
+        try {
+            return c.requete(message, delaiMs);
+        } catch (SocketTimeoutException e) {
+            evincer(slots, i, c);
+            throw e;
+        } catch (InterruptedIOException e) {
+            // Requête abandonnée par l'appelant : le canal n'est pas en cause
+            throw e;
+        } catch (IOException e) {
+            evincer(slots, i, c);
+            throw e;
+        }
+    }
+
+    /**
+     * Variante pour les requêtes à réponse unique (HEARTBEAT, SCORE...).
+     */
+    public String requeteUneLigne(String host, int port, String message) throws IOException {
+        List<String> lignes = requete(host, port, message);
+        return lignes.isEmpty() ? null : lignes.get(0);
+    }
+
+    /** Ferme tous les canaux vers un pair (ex. esclave désactivé). */
+    public void fermer(String host, int port) {
+        AtomicReferenceArray<CanalMultiplexe> slots = canaux.remove(cle(host, port));
+        if (slots == null) return;
+        for (int i = 0; i < slots.length(); i++) {
+            CanalMultiplexe c = slots.getAndSet(i, null);
+            if (c != null) c.close();
+        }
+    }
+
+    private CanalMultiplexe obtenir(AtomicReferenceArray<CanalMultiplexe> slots, int i,
+                                    String host, int port, long delaiMs) throws IOException {
+        CanalMultiplexe nouveau = null;
+        while (true) {
+            CanalMultiplexe c = slots.get(i);
+            if (c != null && c.isOuvert()) {
+                if (nouveau != null) nouveau.close();
+                return c;
+            }
+            if (nouveau == null) {
+                long delai = timeoutMs > 0 ? Math.min(timeoutMs, delaiMs) : delaiMs;
+                nouveau = new CanalMultiplexe(host, port, secret, (int) Math.max(1, Math.min(Integer.MAX_VALUE, delai)));
+            }
+            if (slots.compareAndSet(i, c, nouveau)) return nouveau;
+        }
+    }
+
+    /** Ferme un canal en échec et libère son emplacement s'il l'occupe encore. */
+    private static void evincer(AtomicReferenceArray<CanalMultiplexe> slots, int i, CanalMultiplexe c) {
+        c.close();
+        slots.compareAndSet(i, c, null);
+    }
+
+    private static String cle(String host, int port) {
+        return host + ":" + port;
+    }
+}
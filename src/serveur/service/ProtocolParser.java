@@ -1,5 +1,8 @@
 package serveur.service;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Utilitaire de parsing et de validation du protocole réseau.
  * Centralise toute la logique d'extraction des messages.
@@ -100,6 +103,23 @@ public class ProtocolParser {
         return "SOLO".equals(v) ? "SOLO" : "MULTI";
     }
 
+    /**
+     * Extrait la page demandée d'un message LEADERBOARD:offset,limit.
+     * Retourne null pour le classement complet (LEADERBOARD seul ou format invalide).
+     */
+    public static int[] extrairePageClassement(String ligne) {
+        if (ligne == null || !ligne.startsWith("LEADERBOARD:")) return null;
+        String[] parts = supprimerToken(ligne.substring(12)).split(",");
+        if (parts.length != 2) return null;
+        try {
+            int offset = Integer.parseInt(parts[0].trim());
+            int limit = Integer.parseInt(parts[1].trim());
+            return offset >= 0 && limit > 0 ? new int[] { offset, limit } : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Extrait le USER= d'un message GET_HISTORY.
      */
@@ -114,6 +134,25 @@ public class ProtocolParser {
         return null;
     }
 
+    /**
+     * Extrait l'époque et la version d'un message GET_SCORES_SINCE:epoque:version.
+     * Retourne {0, 0} (tout demander) si elles sont absentes ou invalides.
+     */
+    public static long[] extraireVersionScores(String message) {
+        long[] res = { 0L, 0L };
+        if (message == null || !message.startsWith("GET_SCORES_SINCE:")) return res;
+        String[] parts = message.substring(17).split(";", 2)[0].split(":");
+        if (parts.length != 2) return res;
+        try {
+            res[0] = Long.parseLong(parts[0].trim());
+            res[1] = Long.parseLong(parts[1].trim());
+        } catch (NumberFormatException e) {
+            res[0] = 0L;
+            res[1] = 0L;
+        }
+        return res;
+    }
+
     /**
      * Vérifie le token dans un message serveur-serveur (;token=xxx).
      */
@@ -129,6 +168,22 @@ public class ProtocolParser {
         return false;
     }
 
+    /**
+     * Extrait les champs CLE=valeur d'un message séparé par ';'
+     * (ex: métriques du heartbeat "S1;SESSIONS=3;CPU=0.42").
+     * Les segments sans '=' et le token sont ignorés.
+     */
+    public static Map<String, String> extraireChamps(String message) {
+        Map<String, String> champs = new HashMap<>();
+        if (message == null) return champs;
+        for (String p : message.split(";")) {
+            int eq = p.indexOf('=');
+            if (eq <= 0 || p.startsWith("token=")) continue;
+            champs.put(p.substring(0, eq).trim().toUpperCase(), p.substring(eq + 1).trim());
+        }
+        return champs;
+    }
+
     // --- Helpers ---
 
     private static String supprimerToken(String payload) {
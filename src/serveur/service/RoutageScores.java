@@ -0,0 +1,294 @@
+package serveur.service;
+
+import serveur.view.ConsoleLogger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Routage asynchrone des scores vers l'esclave propriétaire du joueur.
+ *
+ * <p>Les scores à router sont cumulés par joueur dans une file locale, puis
+ * envoyés par lots ({@code PUT_SCORES}) à chaque propriétaire par un thread
+ * dédié, directement d'esclave à esclave sans passer par le maître. Le
+ * propriétaire est recalculé à chaque envoi : si l'anneau change, les scores
+ * en attente suivent le nouveau propriétaire. En cas d'échec, les scores
+ * restent dans la file et le pair est mis en attente (délai croissant).</p>
+ *
+ * <p>Chaque lot porte un numéro de séquence croissant par émetteur. Un lot
+ * resté sans réponse a pu être enregistré : il est renvoyé à l'identique, avec
+ * le même numéro, au même pair, avant tout nouveau lot ; le destinataire ignore
+ * un numéro déjà reçu de cet émetteur ({@link #recevoir(String)}) et les points
+ * ne sont pas comptés deux fois.</p>
+ *
+ * <p>Exception : si le pair quitte l'annuaire avant d'avoir acquitté, son lot
+ * en suspens retourne dans la file et part, renuméroté, vers le nouveau
+ * propriétaire. Le nouveau propriétaire ne peut pas savoir si l'ancien l'avait
+ * enregistré (et garder l'ancien numéro le ferait rejeter s'il a déjà reçu un
+ * lot plus récent) : ce lot est livré au moins une fois.</p>
+ *
+ * <p>Format : {@code PUT_SCORES;FROM=S1;SEQ=42;SCORES=alice:10,bob:5[;token=x]},
+ * réponse {@code OK:SCORES_SAVED}.</p>
+ */
+public class RoutageScores {
+    public static final String COMMANDE = "PUT_SCORES";
+
+    private static final int MAX_PAR_LOT = 500;
+    private static final long ATTENTE_MAX_MS = 10_000;
+
+    private final String idLocal;
+    private final String secret;
+    private final PoolCanaux canaux;
+    private final Function<String, String> proprietaire;
+    private final Function<String, InetSocketAddress> adresse;
+    private final Consumer<Map<String, Integer>> stockageLocal;
+    private final long intervalleMs;
+    private final ConsoleLogger log;
+
+    /** Joueur → points en attente d'envoi (cumulés). */
+    private final Map<String, Integer> enAttente = new LinkedHashMap<>();
+    /** Pair en échec → instant avant lequel on ne réessaie pas, et délai courant. */
+    private final Map<String, long[]> pairsEnEchec = new HashMap<>();
+    /** Pair → lot envoyé sans acquittement, à renvoyer tel quel (thread de routage seul). */
+    private final Map<String, Lot> nonAcquittes = new HashMap<>();
+    /** Dernier numéro de lot émis ; part de l'horloge pour rester croissant après un redémarrage. */
+    private long sequence = System.currentTimeMillis() * 1000;
+    /** Émetteur → dernier numéro de lot reçu. */
+    private final Map<String, Long> derniersRecus = new ConcurrentHashMap<>();
+
+    /** Lot numéroté de scores destiné à un pair. */
+    private static final class Lot {
+        final long seq;
+        final Map<String, Integer> scores;
+
+        Lot(long seq, Map<String, Integer> scores) {
+            this.seq = seq;
+            this.scores = scores;
+        }
+    }
+
+    /**
+     * @param proprietaire  nom du joueur → id de l'esclave propriétaire (null si inconnu)
+     * @param adresse       id d'esclave → adresse (null si inconnue)
+     * @param stockageLocal enregistre un lot de scores dont l'esclave local est propriétaire
+     */
+    public RoutageScores(String idLocal, String secret, PoolCanaux canaux,
+                         Function<String, String> proprietaire,
+                         Function<String, InetSocketAddress> adresse,
+                         Consumer<Map<String, Integer>> stockageLocal,
+                         long intervalleMs, ConsoleLogger log) {
+        this.idLocal = idLocal;
+        this.secret = secret;
+        this.canaux = canaux;
+        this.proprietaire = proprietaire;
+        this.adresse = adresse;
+        this.stockageLocal = stockageLocal;
+        this.intervalleMs = intervalleMs > 0 ? intervalleMs : 200;
+        this.log = log;
+    }
+
+    public void demarrer() {
+        Thread t = new Thread(this::boucler, idLocal + "-RoutageScores");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Ajoute des points à router (non bloquant). */
+    public void router(String nom, int points) {
+        synchronized (enAttente) {
+            enAttente.merge(nom, points, Integer::sum);
+        }
+    }
+
+    public int getNbEnAttente() {
+        synchronized (enAttente) {
+            return enAttente.size();
+        }
+    }
+
+    // --- Envoi ---
+
+    private void boucler() {
+        while (true) {
+            try {
+                Thread.sleep(intervalleMs);
+                vider();
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                log.error("Routage scores: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Envoie tout ce qui est routable ; le reste retourne dans la file. */
+    void vider() {
+        Map<String, Integer> lot;
+        synchronized (enAttente) {
+            if (enAttente.isEmpty()) return;
+            lot = new LinkedHashMap<>(enAttente);
+            enAttente.clear();
+        }
+
+        // Regroupement par propriétaire courant
+        Map<String, Map<String, Integer>> parPair = new HashMap<>();
+        Map<String, Integer> nonRoutes = new HashMap<>();
+        for (Map.Entry<String, Integer> e : lot.entrySet()) {
+            String id = proprietaire.apply(e.getKey());
+            if (id == null) {
+                nonRoutes.put(e.getKey(), e.getValue());
+            } else {
+                parPair.computeIfAbsent(id, k -> new LinkedHashMap<>()).put(e.getKey(), e.getValue());
+            }
+        }
+
+        long maintenant = System.currentTimeMillis();
+        Set<String> pairs = new LinkedHashSet<>(parPair.keySet());
+        pairs.addAll(nonAcquittes.keySet());
+        for (String id : pairs) {
+            Map<String, Integer> scores = parPair.getOrDefault(id, new LinkedHashMap<>());
+            if (id.equals(idLocal)) {
+                stockageLocal.accept(scores);
+                continue;
+            }
+            long[] echec = pairsEnEchec.get(id);
+            InetSocketAddress adr = adresse.apply(id);
+            if (adr == null) {
+                // Pair retiré de l'annuaire : son lot en suspens suit le nouveau propriétaire
+                Lot suspens = nonAcquittes.remove(id);
+                if (suspens != null) cumuler(nonRoutes, suspens.scores);
+                cumuler(nonRoutes, scores);
+                continue;
+            }
+            if (echec != null && maintenant < echec[0]) {
+                cumuler(nonRoutes, scores);
+                continue;
+            }
+            try {
+                envoyer(id, adr, scores);
+                if (echec != null) {
+                    pairsEnEchec.remove(id);
+                    log.info("Routage scores vers " + id + " rétabli");
+                }
+            } catch (IOException ex) {
+                long delai = echec == null ? intervalleMs : Math.min(ATTENTE_MAX_MS, echec[1] * 2);
+                pairsEnEchec.put(id, new long[] { maintenant + delai, delai });
+                Lot suspens = nonAcquittes.get(id);
+                log.warn("Routage scores vers " + id + " échoué (" + ex.getMessage()
+                    + "), " + (scores.size() + (suspens == null ? 0 : suspens.scores.size()))
+                    + " joueur(s) en attente");
+                cumuler(nonRoutes, scores);
+            }
+        }
+
+        if (!nonRoutes.isEmpty()) {
+            synchronized (enAttente) {
+                cumuler(enAttente, nonRoutes);
+            }
+        }
+    }
+
+    /** Ajoute des points sans écraser ceux déjà présents pour un même joueur. */
+    private static void cumuler(Map<String, Integer> cible, Map<String, Integer> scores) {
+        scores.forEach((nom, pts) -> cible.merge(nom, pts, Integer::sum));
+    }
+
+    /**
+     * Renvoie d'abord le lot en suspens du pair, puis les scores par lots de
+     * {@value #MAX_PAR_LOT}. Un lot sort de {@code scores} dès sa numérotation ;
+     * en cas d'échec il reste en suspens et {@code scores} ne garde que les
+     * entrées jamais envoyées.
+     */
+    private void envoyer(String id, InetSocketAddress adr, Map<String, Integer> scores) throws IOException {
+        Lot suspens = nonAcquittes.get(id);
+        if (suspens != null) {
+            envoyerLot(adr, suspens);
+            nonAcquittes.remove(id);
+        }
+        Iterator<Map.Entry<String, Integer>> it = scores.entrySet().iterator();
+        while (it.hasNext()) {
+            Map<String, Integer> envoyes = new LinkedHashMap<>();
+            while (it.hasNext() && envoyes.size() < MAX_PAR_LOT) {
+                Map.Entry<String, Integer> e = it.next();
+                envoyes.put(e.getKey(), e.getValue());
+            }
+            envoyes.keySet().forEach(scores::remove);
+            Lot lot = new Lot(++sequence, envoyes);
+            nonAcquittes.put(id, lot);
+            envoyerLot(adr, lot);
+            nonAcquittes.remove(id);
+            it = scores.entrySet().iterator();
+        }
+    }
+
+    private void envoyerLot(InetSocketAddress adr, Lot lot) throws IOException {
+        StringBuilder sb = new StringBuilder(COMMANDE).append(";FROM=").append(idLocal)
+            .append(";SEQ=").append(lot.seq).append(";SCORES=");
+        boolean premier = true;
+        for (Map.Entry<String, Integer> e : lot.scores.entrySet()) {
+            if (!premier) sb.append(',');
+            sb.append(e.getKey()).append(':').append(e.getValue());
+            premier = false;
+        }
+        if (secret != null) sb.append(";token=").append(secret);
+
+        String reponse = canaux.requeteUneLigne(adr.getHostString(), adr.getPort(), sb.toString());
+        if (reponse == null || !reponse.startsWith("OK:SCORES_SAVED")) {
+            throw new IOException("réponse " + reponse);
+        }
+    }
+
+    /**
+     * Décode un message {@code PUT_SCORES} reçu d'un autre esclave.
+     * @return les scores à enregistrer, ou null si ce lot (FROM, SEQ) a déjà
+     *         été reçu : c'est le renvoi d'un lot dont l'acquittement s'est perdu
+     */
+    public Map<String, Integer> recevoir(String message) {
+        Map<String, String> champs = ProtocolParser.extraireChamps(message);
+        String from = champs.get("FROM");
+        String seq = champs.get("SEQ");
+        if (from != null && seq != null) {
+            long n;
+            try {
+                n = Long.parseLong(seq.trim());
+            } catch (NumberFormatException e) {
+                return decoder(message);
+            }
+            boolean[] nouveau = new boolean[1];
+            derniersRecus.compute(from, (k, dernier) -> {
+                nouveau[0] = dernier == null || n > dernier;
+                return nouveau[0] ? n : dernier;
+            });
+            if (!nouveau[0]) return null;
+        }
+        return decoder(message);
+    }
+
+    /**
+     * Décode le champ SCORES d'un message {@code PUT_SCORES} (entrées invalides ignorées).
+     */
+    public static Map<String, Integer> decoder(String message) {
+        Map<String, Integer> scores = new LinkedHashMap<>();
+        String champ = ProtocolParser.extraireChamps(message).get("SCORES");
+        if (champ == null || champ.isEmpty()) return scores;
+        for (String entree : champ.split(",")) {
+            int sep = entree.lastIndexOf(':');
+            if (sep <= 0) continue;
+            String nom = entree.substring(0, sep);
+            if (!ProtocolParser.validerNom(nom)) continue;
+            try {
+                scores.merge(nom, Integer.parseInt(entree.substring(sep + 1).trim()), Integer::sum);
+            } catch (NumberFormatException ignored) {}
+        }
+        return scores;
+    }
+}
@@ -8,13 +8,42 @@ import java.util.*;
 /**
  * Service de gestion des scores.
  * Encapsule la lecture, écriture et agrégation des scores via StorageManager.
+ * Le classement est maintenu incrémentalement par {@link Classement}.
+ *
+ * <p>Chaque modification reçoit un numéro de version croissant, ce qui permet
+ * de servir les seuls joueurs modifiés depuis une version donnée
+ * ({@link #getScoresDepuis}). L'époque identifie l'instance : après un
+ * redémarrage, les versions repartent de zéro et l'appelant reçoit tout.</p>
  */
 public class ScoreService {
     private final Map<String, Integer> scores = new HashMap<>();
+    private final Classement classement = new Classement();
     private final StorageManager storage;
     private final String section;       // "scores_global" ou clé de partition
     private final String partitionKey;  // null pour global, ex: "partition_0-33" pour partition
 
+    // --- Versions (agrégation incrémentale) ---
+    private final long epoque = System.currentTimeMillis();
+    private long version;
+    private final Map<String, Long> versionParJoueur = new HashMap<>();
+    private final TreeMap<Long, String> modifications = new TreeMap<>();
+
+    /** Scores modifiés depuis une version, avec la version courante. */
+    public static final class Delta {
+        public final long epoque;
+        public final long version;
+        /** Vrai si {@link #scores} contient tous les joueurs (époque inconnue). */
+        public final boolean complet;
+        public final Map<String, Integer> scores;
+
+        Delta(long epoque, long version, boolean complet, Map<String, Integer> scores) {
+            this.epoque = epoque;
+            this.version = version;
+            this.complet = complet;
+            this.scores = scores;
+        }
+    }
+
     /** Constructeur pour scores globaux. */
     public ScoreService(StorageManager storage) {
         this(storage, "scores_global", null);
@@ -33,8 +62,26 @@ public class ScoreService {
     }
 
     public synchronized void ajouterScore(String nom, int points) {
-        scores.put(nom, scores.getOrDefault(nom, 0) + points);
-        sauvegarder();
+        Integer ancien = scores.get(nom);
+        int total = (ancien == null ? 0 : ancien) + points;
+        scores.put(nom, total);
+        classement.mettreAJour(nom, ancien, total);
+        marquer(nom);
+        sauvegarderEntrees(Collections.singletonMap(nom, total));
+    }
+
+    /** Ajoute un lot de points (une seule écriture pour tout le lot). */
+    public synchronized void ajouterScores(Map<String, Integer> points) {
+        Map<String, Object> modifies = new LinkedHashMap<>();
+        points.forEach((nom, pts) -> {
+            Integer ancien = scores.get(nom);
+            int total = (ancien == null ? 0 : ancien) + pts;
+            scores.put(nom, total);
+            classement.mettreAJour(nom, ancien, total);
+            marquer(nom);
+            modifies.put(nom, total);
+        });
+        sauvegarderEntrees(modifies);
     }
 
     public synchronized int getScore(String nom) {
@@ -46,25 +93,63 @@ public class ScoreService {
     }
 
     public synchronized void fusionnerMax(Map<String, Integer> source) {
-        source.forEach((nom, score) ->
-            scores.put(nom, Math.max(scores.getOrDefault(nom, 0), score))
-        );
-        sauvegarder();
+        Map<String, Object> modifies = new LinkedHashMap<>();
+        source.forEach((nom, score) -> {
+            Integer actuel = scores.get(nom);
+            if (actuel == null || score > actuel) {
+                scores.put(nom, score);
+                classement.mettreAJour(nom, actuel, score);
+                marquer(nom);
+                modifies.put(nom, score);
+            }
+        });
+        sauvegarderEntrees(modifies);
     }
 
-    public synchronized List<Map.Entry<String, Integer>> getClassement(int limit) {
-        List<Map.Entry<String, Integer>> list = new ArrayList<>(scores.entrySet());
-        list.sort((a, b) -> b.getValue().compareTo(a.getValue()));
-        if (limit > 0 && list.size() > limit) {
-            return list.subList(0, limit);
+    /** Version courante : change à chaque modification d'un score. */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Joueurs modifiés depuis {@code versionConnue} (O(log n + k)), ou tous les
+     * joueurs si l'époque ne correspond pas à celle de cette instance.
+     */
+    public synchronized Delta getScoresDepuis(long epoqueConnue, long versionConnue) {
+        boolean complet = epoqueConnue != epoque || versionConnue > version;
+        Map<String, Integer> res = new LinkedHashMap<>();
+        if (complet) {
+            res.putAll(scores);
+        } else {
+            for (String nom : modifications.tailMap(versionConnue, false).values()) {
+                res.put(nom, scores.get(nom));
+            }
         }
-        return list;
+        return new Delta(epoque, version, complet, res);
+    }
+
+    public synchronized List<Map.Entry<String, Integer>> getClassement(int limit) {
+        return classement.top(limit);
+    }
+
+    /**
+     * Rang (à partir de 1) d'un joueur, ou -1 s'il n'a pas de score.
+     */
+    public synchronized int getRang(String nom) {
+        Integer score = scores.get(nom);
+        return score == null ? -1 : classement.rang(nom, score);
     }
 
     public synchronized List<Map.Entry<String, Integer>> getClassement() {
         return getClassement(0);
     }
 
+    private void marquer(String nom) {
+        Long ancienne = versionParJoueur.put(nom, ++version);
+        if (ancienne != null) modifications.remove(ancienne);
+        modifications.put(version, nom);
+    }
+
     // --- Persistance ---
 
     @SuppressWarnings("unchecked")
@@ -78,19 +163,20 @@ public class ScoreService {
             map = (pObj instanceof Map) ? (Map<String, Object>) pObj : new LinkedHashMap<>();
         }
         for (Map.Entry<String, Object> e : map.entrySet()) {
-            scores.put(e.getKey(), SimpleJson.toInt(e.getValue(), 0));
+            int score = SimpleJson.toInt(e.getValue(), 0);
+            classement.mettreAJour(e.getKey(), scores.put(e.getKey(), score), score);
+            marquer(e.getKey());
         }
         System.out.println("✓ " + scores.size() + " scores chargés"
             + (partitionKey != null ? " (partition " + partitionKey + ")" : " (global)"));
     }
 
-    private void sauvegarder() {
-        Map<String, Object> map = new LinkedHashMap<>();
-        scores.forEach((nom, score) -> map.put(nom, score));
+    /** Persiste uniquement les entrées modifiées. */
+    private void sauvegarderEntrees(Map<String, ?> modifies) {
         if (partitionKey == null) {
-            storage.sauvegarder(section, map);
+            storage.fusionnerEntrees(section, modifies);
         } else {
-            storage.sauvegarderPartition(partitionKey, map);
+            storage.fusionnerEntreesPartition(partitionKey, modifies);
         }
     }
 }
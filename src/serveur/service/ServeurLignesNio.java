@@ -0,0 +1,263 @@
+package serveur.service;
+
+import serveur.view.ConsoleLogger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Serveur TCP non bloquant pour les protocoles « une requête, une réponse ».
+ *
+ * <p>Un seul thread sélecteur accepte les connexions, envoie la salutation,
+ * lit la première ligne puis écrit la réponse. Seul le traitement de la requête
+ * est délégué à des workers. La connexion est fermée une fois la réponse
+ * entièrement écrite.</p>
+ *
+ * <p>Les requêtes bloquantes (qui attendent les esclaves) ont leur propre pool :
+ * elles ne peuvent pas occuper les workers des requêtes rapides. Chaque pool a
+ * une file bornée ; une requête qui n'y trouve pas de place reçoit
+ * {@code ERREUR:Serveur surchargé} au lieu d'attendre indéfiniment.</p>
+ */
+public class ServeurLignesNio {
+
+    private static final int TAILLE_MAX_LIGNE = 8192;
+    private static final long INTERVALLE_SELECT_MS = 1000;
+
+    private final int port;
+    private final byte[] salutation;
+    private final int nbWorkers;
+    private final int nbWorkersBloquants;
+    private final int capaciteFile;
+    private final Predicate<String> bloquante;
+    private final int timeoutMs;
+    private final TraitementRequete traitement;
+    private final ConsoleLogger log;
+    private final Queue<Connexion> reponsesPretes = new ConcurrentLinkedQueue<>();
+
+    private Selector selector;
+    private ExecutorService workers;
+    private ExecutorService workersBloquants;
+
+    public ServeurLignesNio(int port, String salutation, int nbWorkers, int timeoutMs,
+                            TraitementRequete traitement, ConsoleLogger log) {
+        this(port, salutation, nbWorkers, 0, 256, ligne -> false, timeoutMs, traitement, log);
+    }
+
+    /**
+     * @param nbWorkersBloquants threads réservés aux requêtes bloquantes
+     * @param capaciteFile       requêtes en attente par pool avant refus
+     * @param bloquante          reconnaît une requête bloquante à sa ligne
+     */
+    public ServeurLignesNio(int port, String salutation, int nbWorkers, int nbWorkersBloquants,
+                            int capaciteFile, Predicate<String> bloquante, int timeoutMs,
+                            TraitementRequete traitement, ConsoleLogger log) {
+        this.port = port;
+        this.salutation = (salutation + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        this.nbWorkers = Math.max(1, nbWorkers);
+        this.nbWorkersBloquants = Math.max(1, nbWorkersBloquants);
+        this.capaciteFile = Math.max(1, capaciteFile);
+        this.bloquante = bloquante;
+        this.timeoutMs = timeoutMs;
+        this.traitement = traitement;
+        this.log = log;
+    }
+
+    /** État d'une connexion cliente. */
+    private static class Connexion {
+        final SocketChannel canal;
+        final ByteArrayOutputStream ligne = new ByteArrayOutputStream(128);
+        ByteBuffer sortie;
+        boolean enTraitement;
+        boolean fermerApresEcriture;
+        long derniereActivite = System.currentTimeMillis();
+
+        Connexion(SocketChannel canal) {
+            this.canal = canal;
+        }
+    }
+
+    /**
+     * Boucle principale du sélecteur — bloque le thread appelant.
+     */
+    public void demarrer() throws IOException {
+        workers = creerPool("NioWorker", nbWorkers);
+        workersBloquants = creerPool("NioFanoutWorker", nbWorkersBloquants);
+
+        ByteBuffer lecture = ByteBuffer.allocateDirect(4096);
+        try (Selector sel = Selector.open();
+             ServerSocketChannel serveur = ServerSocketChannel.open()) {
+            this.selector = sel;
+            serveur.bind(new InetSocketAddress(port), 1024);
+            serveur.configureBlocking(false);
+            serveur.register(sel, SelectionKey.OP_ACCEPT);
+
+            long dernierBalayage = System.currentTimeMillis();
+            while (!Thread.currentThread().isInterrupted()) {
+                sel.select(INTERVALLE_SELECT_MS);
+                appliquerReponsesPretes();
+
+                Iterator<SelectionKey> it = sel.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accepter(serveur);
+                        else if (key.isReadable()) lire(key, lecture);
+                        else if (key.isWritable()) ecrire(key);
+                    } catch (IOException | CancelledKeyException e) {
+                        fermer(key);
+                    }
+                }
+
+                long maintenant = System.currentTimeMillis();
+                if (maintenant - dernierBalayage >= INTERVALLE_SELECT_MS) {
+                    fermerConnexionsInactives(maintenant);
+                    dernierBalayage = maintenant;
+                }
+            }
+        } finally {
+            workers.shutdownNow();
+            workersBloquants.shutdownNow();
+        }
+    }
+
+    /** Pool de taille fixe à file bornée : la saturation est signalée par un rejet. */
+    private ExecutorService creerPool(String prefixe, int nbThreads) {
+        AtomicInteger compteur = new AtomicInteger();
+        return new ThreadPoolExecutor(nbThreads, nbThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capaciteFile), r -> {
+                Thread t = new Thread(r, prefixe + "-" + compteur.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // ─────────────────────────── Événements ──────────────────────────────
+
+    private void accepter(ServerSocketChannel serveur) throws IOException {
+        SocketChannel canal;
+        while ((canal = serveur.accept()) != null) {
+            canal.configureBlocking(false);
+            canal.socket().setTcpNoDelay(true);
+            Connexion c = new Connexion(canal);
+            c.sortie = ByteBuffer.wrap(salutation);
+            canal.register(selector, SelectionKey.OP_WRITE, c);
+        }
+    }
+
+    private void lire(SelectionKey key, ByteBuffer tampon) throws IOException {
+        Connexion c = (Connexion) key.attachment();
+        tampon.clear();
+        int n = c.canal.read(tampon);
+        if (n < 0) { fermer(key); return; }
+        c.derniereActivite = System.currentTimeMillis();
+        tampon.flip();
+
+        while (tampon.hasRemaining()) {
+            byte b = tampon.get();
+            if (b == '\n') {
+                key.interestOps(0);
+                soumettre(key, c, decoderLigne(c.ligne));
+                return;
+            }
+            if (c.ligne.size() >= TAILLE_MAX_LIGNE) {
+                repondre(key, c, "ERREUR:Requête trop longue" + System.lineSeparator());
+                return;
+            }
+            c.ligne.write(b);
+        }
+    }
+
+    private void ecrire(SelectionKey key) throws IOException {
+        Connexion c = (Connexion) key.attachment();
+        c.canal.write(c.sortie);
+        c.derniereActivite = System.currentTimeMillis();
+        if (c.sortie.hasRemaining()) return;
+
+        if (c.fermerApresEcriture) {
+            fermer(key);
+        } else {
+            c.sortie = null;
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    // ──────────────────────────── Traitement ─────────────────────────────
+
+    private void soumettre(SelectionKey key, Connexion c, String ligne) {
+        c.enTraitement = true;
+        ExecutorService pool = bloquante.test(ligne) ? workersBloquants : workers;
+        try {
+            pool.execute(() -> {
+                StringWriter sw = new StringWriter();
+                try (PrintWriter out = new PrintWriter(sw)) {
+                    traitement.traiter(ligne, out);
+                } catch (Exception e) {
+                    log.error("Erreur traitement requête: " + e.getMessage());
+                }
+                c.sortie = ByteBuffer.wrap(sw.toString().getBytes(StandardCharsets.UTF_8));
+                c.fermerApresEcriture = true;
+                reponsesPretes.add(c);
+                selector.wakeup();
+            });
+        } catch (RejectedExecutionException e) {
+            c.enTraitement = false;
+            repondre(key, c, "ERREUR:Serveur surchargé" + System.lineSeparator());
+        }
+    }
+
+    private void repondre(SelectionKey key, Connexion c, String reponse) {
+        c.sortie = ByteBuffer.wrap(reponse.getBytes(StandardCharsets.UTF_8));
+        c.fermerApresEcriture = true;
+        key.interestOps(SelectionKey.OP_WRITE);
+    }
+
+    /** Exécuté sur le thread sélecteur : arme l'écriture des réponses calculées par les workers. */
+    private void appliquerReponsesPretes() {
+        Connexion c;
+        while ((c = reponsesPretes.poll()) != null) {
+            c.enTraitement = false;
+            c.derniereActivite = System.currentTimeMillis();
+            SelectionKey key = c.canal.keyFor(selector);
+            if (key == null || !key.isValid()) continue;
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void fermerConnexionsInactives(long maintenant) {
+        for (SelectionKey key : selector.keys()) {
+            if (!(key.attachment() instanceof Connexion)) continue;
+            Connexion c = (Connexion) key.attachment();
+            if (!c.enTraitement && maintenant - c.derniereActivite > timeoutMs) {
+                fermer(key);
+            }
+        }
+    }
+
+    private static String decoderLigne(ByteArrayOutputStream ligne) {
+        String s = new String(ligne.toByteArray(), StandardCharsets.UTF_8);
+        return s.endsWith("\r") ? s.substring(0, s.length() - 1) : s;
+    }
+
+    private static void fermer(SelectionKey key) {
+        key.cancel();
+        try { key.channel().close(); } catch (IOException ignored) {}
+    }
+}
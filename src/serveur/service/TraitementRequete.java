@@ -0,0 +1,12 @@
+package serveur.service;
+
+import java.io.PrintWriter;
+
+/**
+ * Traitement d'une requête ligne : écrit la réponse complète dans {@code out}.
+ * Partagé par {@link ServeurLignesNio} et {@link CanalMultiplexe}.
+ */
+@FunctionalInterface
+public interface TraitementRequete {
+    void traiter(String ligne, PrintWriter out);
+}
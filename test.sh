@@ -0,0 +1,29 @@
+#!/bin/bash
+
+# Script de tests du projet Quiz Distribué
+# Chaque classe *Test de test/ est un programme autonome : code de sortie 0 si
+# le test passe. Usage: ./test.sh [filtre]
+
+cd "$(dirname "$0")" || exit 1
+
+SORTIE=$(mktemp -d)
+trap 'rm -rf "$SORTIE"' EXIT
+
+echo "→ Compilation des sources et des tests..."
+javac -encoding UTF-8 -d "$SORTIE" -sourcepath src \
+    $(find src test -name "*.java") || { echo "✗ Erreur de compilation"; exit 1; }
+
+ECHECS=0
+for f in $(find test -name "*Test.java" | sort); do
+    CLASSE=$(echo "${f#test/}" | sed 's/\.java$//; s#/#.#g')
+    [[ -n "$1" && "$CLASSE" != *"$1"* ]] && continue
+    echo "→ $CLASSE"
+    java -cp "$SORTIE" "$CLASSE" || ECHECS=$((ECHECS + 1))
+done
+
+if [ $ECHECS -eq 0 ]; then
+    echo "✓ Tous les tests passent"
+else
+    echo "✗ $ECHECS test(s) en échec"
+    exit 1
+fi
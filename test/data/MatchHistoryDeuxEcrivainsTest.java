@@ -0,0 +1,117 @@
+package data;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deux processus écrivent leurs matchs dans le même storage.json (moteur
+ * JOURNAL) et élaguent chacun l'historique : aucune ligne ni variation de cote
+ * de l'autre processus ne doit être perdue.
+ *
+ * <p>Vérifie, après relecture : les {@code RETENTION} dernières lignes de
+ * chaque joueur et sa cote, recalculée depuis la suite complète de ses matchs.</p>
+ */
+public class MatchHistoryDeuxEcrivainsTest {
+    private static final int RETENTION = 5;
+    private static final int JOUEURS = 4;
+    private static final int MATCHS = 800;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("ecrivain")) {
+            ecrire(args[1], args[2], Long.parseLong(args[3]));
+            return;
+        }
+
+        Path dir = Files.createTempDirectory("quiz-historique");
+        String fichier = dir.resolve("storage.json").toString();
+        // Un écrivain synchrone, un écrivain en écriture différée
+        Process a = lancer(fichier, "a", 0);
+        Process b = lancer(fichier, "b", 20);
+        attendre(a);
+        attendre(b);
+
+        StorageManager storage = new StorageManager(fichier, StorageManager.MOTEUR_JOURNAL, 500);
+        MatchHistory historique = new MatchHistory(storage, RETENTION);
+        List<String> erreurs = new ArrayList<>();
+        for (String prefixe : List.of("a", "b")) {
+            for (int j = 0; j < JOUEURS; j++) {
+                String user = prefixe + j;
+                int cote = MatchHistory.COTE_INITIALE + 16 * (victoires(j) - defaites(j));
+                if (historique.getCote(user) != cote) {
+                    erreurs.add(user + " : cote " + historique.getCote(user) + " au lieu de " + cote);
+                }
+                List<String> attendus = derniersMatchs(prefixe, j);
+                List<String> lus = new ArrayList<>();
+                for (String ligne : historique.getHistoriquePourUser(user, RETENTION)) {
+                    lus.add(ligne.split(";")[1]);
+                }
+                if (!lus.equals(attendus)) {
+                    erreurs.add(user + " : historique " + lus + " au lieu de " + attendus);
+                }
+            }
+        }
+        int lignes = storage.getList("matches").size();
+        if (lignes >= 2 * MATCHS) {
+            erreurs.add("historique non élagué (" + lignes + " lignes)");
+        }
+
+        if (!erreurs.isEmpty()) {
+            erreurs.forEach(e -> System.out.println("✗ " + e));
+            System.exit(1);
+        }
+        System.out.println("✓ MatchHistoryDeuxEcrivainsTest (" + lignes + " lignes après élagage)");
+    }
+
+    /** Match i : le joueur i % JOUEURS bat le joueur (i + 1) % JOUEURS. */
+    private static void ecrire(String fichier, String prefixe, long intervalleMs) {
+        StorageManager storage = new StorageManager(fichier, StorageManager.MOTEUR_JOURNAL, 500,
+            intervalleMs, 0, StorageManager.FSYNC_NONE);
+        MatchHistory historique = new MatchHistory(storage, RETENTION);
+        for (int i = 0; i < MATCHS; i++) {
+            historique.enregistrerMatch(prefixe + "-" + i, "Test", i, List.of(
+                new MatchHistory.PlayerScore(prefixe + (i % JOUEURS), 2, 1, 2),
+                new MatchHistory.PlayerScore(prefixe + ((i + 1) % JOUEURS), 1, 2, 2)));
+        }
+        storage.vider();
+    }
+
+    private static int victoires(int j) {
+        int n = 0;
+        for (int i = 0; i < MATCHS; i++) if (i % JOUEURS == j) n++;
+        return n;
+    }
+
+    private static int defaites(int j) {
+        int n = 0;
+        for (int i = 0; i < MATCHS; i++) if ((i + 1) % JOUEURS == j) n++;
+        return n;
+    }
+
+    private static List<String> derniersMatchs(String prefixe, int j) {
+        LinkedList<String> ids = new LinkedList<>();
+        for (int i = 0; i < MATCHS; i++) {
+            if (i % JOUEURS != j && (i + 1) % JOUEURS != j) continue;
+            ids.addLast(prefixe + "-" + i);
+            if (ids.size() > RETENTION) ids.removeFirst();
+        }
+        return ids;
+    }
+
+    private static Process lancer(String fichier, String prefixe, long intervalleMs) throws Exception {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                MatchHistoryDeuxEcrivainsTest.class.getName(), "ecrivain", fichier, prefixe, String.valueOf(intervalleMs))
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+    }
+
+    private static void attendre(Process p) throws Exception {
+        if (!p.waitFor(120, TimeUnit.SECONDS) || p.exitValue() != 0) {
+            p.destroyForcibly();
+            throw new IllegalStateException("écrivain en échec");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package serveur.service;
+
+import serveur.view.ConsoleLogger;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routage des scores vers des pairs qui n'acquittent pas, puis quittent
+ * l'annuaire ou reviennent :
+ * <ul>
+ *   <li>le lot en suspens d'un pair parti est cumulé aux nouveaux points du
+ *       même joueur et suit le nouveau propriétaire, sans perte ; l'ancien pair
+ *       l'avait enregistré, il est donc compté deux fois (au moins une fois) ;</li>
+ *   <li>le lot en suspens renvoyé au même pair n'est compté qu'une fois.</li>
+ * </ul>
+ */
+public class RoutageScoresTest {
+
+    /** Pair minimal parlant le protocole CANAL ; n'acquitte que si {@code acquitter}. */
+    private static final class PairFactice implements Closeable {
+        final ServerSocket serveur = new ServerSocket(0);
+        final RoutageScores reception;
+        final Map<String, Integer> recus = new ConcurrentHashMap<>();
+        volatile boolean acquitter;
+
+        PairFactice(String id, boolean acquitter, ConsoleLogger log) throws IOException {
+            this.acquitter = acquitter;
+            this.reception = new RoutageScores(id, null, null, n -> null, n -> null, s -> {}, 0, log);
+            Thread t = new Thread(this::accepter, "Pair-" + id);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        InetSocketAddress adresse() {
+            return new InetSocketAddress("localhost", serveur.getLocalPort());
+        }
+
+        private void accepter() {
+            try {
+                while (true) {
+                    Socket s = serveur.accept();
+                    Thread t = new Thread(() -> servir(s));
+                    t.setDaemon(true);
+                    t.start();
+                }
+            } catch (IOException fermee) {
+            }
+        }
+
+        private void servir(Socket s) {
+            try (s) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8), true);
+                if (!in.readLine().startsWith(CanalMultiplexe.OUVERTURE)) return;
+                out.print(CanalMultiplexe.OUVERTURE_OK + "\n");
+                out.flush();
+                String ligne;
+                while ((ligne = in.readLine()) != null) {
+                    int sep = ligne.indexOf(';');
+                    String id = ligne.substring(4, sep);
+                    Map<String, Integer> scores = reception.recevoir(ligne.substring(sep + 1));
+                    if (scores != null) scores.forEach((nom, pts) -> recus.merge(nom, pts, Integer::sum));
+                    if (acquitter) {
+                        out.print("RES:" + id + ";OK:SCORES_SAVED\nFIN:" + id + "\n");
+                        out.flush();
+                    }
+                }
+            } catch (IOException | RuntimeException coupee) {
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serveur.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConsoleLogger log = new ConsoleLogger("TEST");
+        List<String> erreurs = new ArrayList<>();
+        Map<String, String> proprietaires = new ConcurrentHashMap<>();
+        Map<String, InetSocketAddress> annuaire = new ConcurrentHashMap<>();
+
+        try (PairFactice p1 = new PairFactice("P1", false, log);
+             PairFactice p2 = new PairFactice("P2", true, log);
+             PairFactice p3 = new PairFactice("P3", false, log)) {
+            annuaire.put("P1", p1.adresse());
+            annuaire.put("P2", p2.adresse());
+            annuaire.put("P3", p3.adresse());
+            RoutageScores routage = new RoutageScores("S0", null, new PoolCanaux(null, 1, 300),
+                proprietaires::get, annuaire::get, s -> {}, 1000, log);
+
+            // Pair parti sans acquitter : son lot et les nouveaux points du joueur sont cumulés
+            proprietaires.put("alice", "P1");
+            routage.router("alice", 10);
+            routage.vider();
+            annuaire.remove("P1");
+            routage.router("alice", 5);
+            routage.vider();
+            proprietaires.put("alice", "P2");
+            routage.vider();
+            verifier(erreurs, "alice chez P2", 15, p2.recus.get("alice"));
+            verifier(erreurs, "alice chez P1 (lot non acquitté, au moins une fois)", 10, p1.recus.get("alice"));
+
+            // Pair revenu : le lot en suspens est renvoyé avec son numéro et compté une fois
+            proprietaires.put("bob", "P3");
+            routage.router("bob", 7);
+            routage.vider();
+            routage.router("bob", 3);
+            routage.vider(); // P3 en attente (1 s) : bob retourne dans la file
+            p3.acquitter = true;
+            Thread.sleep(1100);
+            routage.vider();
+            verifier(erreurs, "bob chez P3", 10, p3.recus.get("bob"));
+            verifier(erreurs, "file vide", 0, routage.getNbEnAttente());
+        }
+
+        if (!erreurs.isEmpty()) {
+            erreurs.forEach(e -> System.out.println("✗ " + e));
+            System.exit(1);
+        }
+        System.out.println("✓ RoutageScoresTest");
+    }
+
+    private static void verifier(List<String> erreurs, String quoi, int attendu, Integer obtenu) {
+        if (obtenu == null || obtenu != attendu) {
+            erreurs.add(quoi + " : " + obtenu + " au lieu de " + attendu);
+        }
+    }
+}